@@ -50,10 +50,7 @@ public class JBotSimConvert {
 
     private static void exportTopology(String filename, Topology tp) {
         TopologySerializer serializer = getProperSerializer(filename);
-        String exportedTopology = serializer.exportToString(tp);
-
-        if(exportedTopology != null)
-            tp.getFileManager().write(filename, exportedTopology);
+        serializer.exportToFile(tp, filename);
     }
 
     private static void importTopology(String filename, Topology tp) {
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.benchmarks;
+
+import io.jbotsim.core.Node;
+import io.jbotsim.core.Topology;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Helpers shared by the benchmarks.
+ */
+final class Benchmarks {
+    /**
+     * The seed of every topology and random stream, so that all runs benchmark the same topologies.
+     */
+    static final long SEED = 42;
+
+    /**
+     * The average number of neighbors of a node in the topologies created by {@link #createTopology(int)}.
+     */
+    static final int AVERAGE_DEGREE = 10;
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Creates a topology of randomly located {@link Node Nodes}, whose size grows with the number of nodes so that
+     * their average degree is {@link #AVERAGE_DEGREE}.
+     *
+     * @param nbNodes the number of nodes.
+     * @return the topology.
+     */
+    static Topology createTopology(int nbNodes) {
+        return createTopology(nbNodes, Node::new);
+    }
+
+    /**
+     * Creates a topology of randomly located nodes, whose size grows with the number of nodes so that their average
+     * degree is {@link #AVERAGE_DEGREE}.
+     *
+     * @param nbNodes     the number of nodes.
+     * @param nodeFactory the function creating the nodes.
+     * @return the topology.
+     */
+    static Topology createTopology(int nbNodes, Supplier<Node> nodeFactory) {
+        double range = Topology.DEFAULT_COMMUNICATION_RANGE;
+        int size = (int) Math.sqrt(nbNodes * Math.PI * range * range / AVERAGE_DEGREE);
+        Topology topology = new Topology(size, size);
+        topology.setSeed(SEED);
+        SplittableRandom random = topology.getRandom(Benchmarks.class.getName());
+        for (int i = 0; i < nbNodes; i++)
+            topology.addNode(random.nextDouble() * size, random.nextDouble() * size, nodeFactory.get());
+        return topology;
+    }
+
+    /**
+     * Wraps the specified coordinate into <code>[0, size)</code>.
+     *
+     * @param coordinate the coordinate.
+     * @param size       the size of the topology along this coordinate.
+     * @return the wrapped coordinate.
+     */
+    static double wrap(double coordinate, double size) {
+        return (coordinate % size + size) % size;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.benchmarks;
+
+import io.jbotsim.contrib.messaging.AsyncMessageEngine;
+import io.jbotsim.contrib.messaging.CapacityMessageEngine;
+import io.jbotsim.contrib.messaging.RandomDelayMessageEngine;
+import io.jbotsim.core.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks rounds during which every node broadcasts a message, for each {@link MessageEngine}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageEngineBenchmark {
+    private static final int DELAY = 5;
+
+    @Param({"1000", "10000"})
+    int nbNodes;
+
+    @Param({"default", "default-recycled", "delay", "async", "randomDelay", "capacity"})
+    String engine;
+
+    Topology topology;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        topology = Benchmarks.createTopology(nbNodes, BroadcastingNode::new);
+        topology.setMessageEngine(createMessageEngine(engine, topology));
+        // reaches the steady state of the delayed engines
+        topology.runRounds(4 * DELAY);
+    }
+
+    private static MessageEngine createMessageEngine(String name, Topology topology) {
+        switch (name) {
+            case "delay":
+                return new DelayMessageEngine(topology, DELAY);
+            case "async":
+                return new AsyncMessageEngine(topology, DELAY, AsyncMessageEngine.Type.FIFO);
+            case "randomDelay":
+                return new RandomDelayMessageEngine(topology, DELAY);
+            case "capacity":
+                return new CapacityMessageEngine(topology);
+            case "default-recycled":
+                DefaultMessageEngine messageEngine = new DefaultMessageEngine(topology);
+                messageEngine.enableMessageRecycling();
+                return messageEngine;
+            default:
+                return new DefaultMessageEngine(topology);
+        }
+    }
+
+    @Benchmark
+    public void broadcastRound() {
+        topology.runRounds(1);
+    }
+
+    /**
+     * A node which broadcasts a message on each round.
+     */
+    public static class BroadcastingNode extends Node {
+        @Override
+        public void onClock() {
+            sendAll(new Message(getTime()));
+        }
+    }
+}
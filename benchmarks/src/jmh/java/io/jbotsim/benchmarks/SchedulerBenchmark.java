@@ -0,0 +1,70 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.benchmarks;
+
+import io.jbotsim.core.Node;
+import io.jbotsim.core.Scheduler;
+import io.jbotsim.core.Topology;
+import io.jbotsim.core.event.ClockListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one round of the {@link Scheduler}, with nodes doing almost nothing, so that the cost of the scheduling
+ * itself is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchedulerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int nbNodes;
+
+    Topology topology;
+    Scheduler scheduler;
+    List<ClockListener> expiredListeners = Collections.emptyList();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        topology = Benchmarks.createTopology(nbNodes, CountingNode::new);
+        scheduler = topology.getScheduler();
+    }
+
+    @Benchmark
+    public void onClock() {
+        scheduler.onClock(topology, expiredListeners);
+    }
+
+    /**
+     * A node which only counts its rounds.
+     */
+    public static class CountingNode extends Node {
+        int nbRounds = 0;
+
+        @Override
+        public void onClock() {
+            nbRounds++;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.benchmarks;
+
+import io.jbotsim.core.Topology;
+import io.jbotsim.io.TopologySerializer;
+import io.jbotsim.io.format.dot.DotTopologySerializer;
+import io.jbotsim.io.format.graph6.Graph6TopologySerializer;
+import io.jbotsim.io.format.xml.XMLTopologySerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the export and the import of a {@link Topology} with each {@link TopologySerializer}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerializationBenchmark {
+    @Param({"graph6", "xml", "dot"})
+    String format;
+
+    @Param({"1000"})
+    int nbNodes;
+
+    TopologySerializer serializer;
+    Topology topology;
+    String data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = createSerializer(format);
+        topology = Benchmarks.createTopology(nbNodes);
+        data = serializer.exportToString(topology);
+    }
+
+    private static TopologySerializer createSerializer(String name) {
+        switch (name) {
+            case "xml":
+                return new XMLTopologySerializer(false);
+            case "dot":
+                return new DotTopologySerializer(false);
+            default:
+                return new Graph6TopologySerializer();
+        }
+    }
+
+    @Benchmark
+    public String export() {
+        return serializer.exportToString(topology);
+    }
+
+    @Benchmark
+    public Topology importTopology() {
+        Topology imported = createTargetTopology();
+        serializer.importFromString(imported, data);
+        return imported;
+    }
+
+    @Benchmark
+    public Topology roundTrip() {
+        Topology imported = createTargetTopology();
+        serializer.importFromString(imported, serializer.exportToString(topology));
+        return imported;
+    }
+
+    /**
+     * Creates the topology into which the data is imported. Its wireless links are disabled, so that the imported
+     * links are the exported ones, whatever the locations stored by the format.
+     */
+    private static Topology createTargetTopology() {
+        Topology imported = new Topology();
+        imported.disableWireless();
+        return imported;
+    }
+}
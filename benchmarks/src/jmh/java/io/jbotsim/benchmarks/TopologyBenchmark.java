@@ -0,0 +1,115 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.benchmarks;
+
+import io.jbotsim.core.Link;
+import io.jbotsim.core.Node;
+import io.jbotsim.core.Topology;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the maintenance of the links of a {@link Topology}: refresh of the wireless links when every node moves,
+ * and churn of wired links.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TopologyBenchmark {
+
+    /**
+     * A topology of nodes spread with a constant density, which move by a few units at each invocation, with either
+     * refresh mode.
+     */
+    @State(Scope.Thread)
+    public static class MobileNodes {
+        @Param({"1000", "10000"})
+        int nbNodes;
+
+        @Param({"EVENTBASED", "CLOCKBASED"})
+        Topology.RefreshMode refreshMode;
+
+        Topology topology;
+        List<Node> nodes;
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            topology = Benchmarks.createTopology(nbNodes);
+            topology.setRefreshMode(refreshMode);
+            nodes = topology.getNodes();
+            random = new SplittableRandom(Benchmarks.SEED);
+        }
+    }
+
+    /**
+     * A topology without wireless links, and a fixed set of wired links to add and remove.
+     */
+    @State(Scope.Thread)
+    public static class WiredLinks {
+        @Param({"1000", "10000"})
+        int nbLinks;
+
+        Topology topology;
+        List<Link> links;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            topology = new Topology();
+            topology.disableWireless();
+            SplittableRandom random = new SplittableRandom(Benchmarks.SEED);
+            List<Node> nodes = new ArrayList<>();
+            for (int i = 0; i < nbLinks / 4; i++) {
+                Node node = new Node();
+                topology.addNode(random.nextDouble() * topology.getWidth(), random.nextDouble() * topology.getHeight(),
+                        node);
+                nodes.add(node);
+            }
+            links = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i++)
+                for (int j = 1; j <= 4; j++)
+                    links.add(new Link(nodes.get(i), nodes.get((i + j) % nodes.size()), Link.Mode.WIRED));
+        }
+    }
+
+    @Benchmark
+    public void moveAllNodes(MobileNodes state) {
+        for (Node node : state.nodes) {
+            double dx = state.random.nextDouble(-5, 5);
+            double dy = state.random.nextDouble(-5, 5);
+            node.setLocation(Benchmarks.wrap(node.getX() + dx, state.topology.getWidth()),
+                    Benchmarks.wrap(node.getY() + dy, state.topology.getHeight()));
+        }
+        // runs the batched refresh of the CLOCKBASED mode, as at the end of a round
+        state.topology.onClock();
+    }
+
+    @Benchmark
+    public void addAndRemoveLinks(WiredLinks state) {
+        for (Link link : state.links)
+            state.topology.addLink(link);
+        for (Link link : state.links)
+            state.topology.removeLink(link);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>The {@link ArcSet} holds the directed {@link Link Links} of a {@link Topology}, in insertion order, with a
+ * constant-time addition and removal.</p>
+ *
+ * <p>An undirected loop registers its arc twice, once for each direction: each arc is thus stored along with its
+ * number of registrations, and is iterated as many times.</p>
+ */
+class ArcSet extends AbstractCollection<Link> {
+    private final LinkedHashMap<Link, Integer> counts = new LinkedHashMap<>();
+    private int size = 0;
+
+    /**
+     * Registers the specified arc once more.
+     *
+     * @param arc the arc.
+     * @return <code>true</code>.
+     */
+    @Override
+    public boolean add(Link arc) {
+        counts.merge(arc, 1, Integer::sum);
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes one registration of the specified arc, if any.
+     *
+     * @param o the arc.
+     * @return <code>true</code> if a registration has been removed.
+     */
+    @Override
+    public boolean remove(Object o) {
+        Integer count = counts.get(o);
+        if (count == null)
+            return false;
+        if (count == 1)
+            counts.remove(o);
+        else
+            counts.put((Link) o, count - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes all the registrations of the specified arc, if any.
+     *
+     * @param arc the arc.
+     */
+    void removeAll(Link arc) {
+        Integer count = counts.remove(arc);
+        if (count != null)
+            size -= count;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return counts.containsKey(o);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Link> iterator() {
+        Iterator<Map.Entry<Link, Integer>> entries = counts.entrySet().iterator();
+        return new Iterator<Link>() {
+            private Link arc = null;
+            private int remaining = 0;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0 || entries.hasNext();
+            }
+
+            @Override
+            public Link next() {
+                if (remaining == 0) {
+                    if (!entries.hasNext())
+                        throw new NoSuchElementException();
+                    Map.Entry<Link, Integer> entry = entries.next();
+                    arc = entry.getKey();
+                    remaining = entry.getValue();
+                }
+                remaining--;
+                return arc;
+            }
+        };
+    }
+}
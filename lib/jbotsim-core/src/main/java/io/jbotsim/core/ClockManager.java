@@ -24,7 +24,6 @@ import io.jbotsim.core.event.ClockListener;
 
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -34,8 +33,8 @@ public class ClockManager {
     final static int CLOCK_INITIAL_VALUE = 0;
 
     Topology tp;
-    HashMap<ClockListener, Integer> listeners = new HashMap<>();
-    HashMap<ClockListener, Integer> countdown = new HashMap<>();
+    TimerWheel listeners = new TimerWheel();
+    private final List<ClockListener> expiredListeners = new ArrayList<>();
     Class<? extends Clock> clockModel = null;
     Clock clock = null;
     int time = CLOCK_INITIAL_VALUE;
@@ -48,8 +47,40 @@ public class ClockManager {
     }
 
     public void onClock() {
-        incrementTime();
-        callScheduler();
+        Thread previousRoundThread = tp.roundThread;
+        tp.roundThread = Thread.currentThread();
+        try {
+            if (tp.isDiscreteEventModeEnabled() && !firstRound)
+                skipIdleRounds();
+            incrementTime();
+            RoundMetrics metrics = tp.roundMetrics;
+            if (metrics != null) {
+                metrics.startRound(tp.getTime());
+                tp.notifyRoundStart(metrics);
+            }
+            callScheduler();
+            if (metrics != null) {
+                metrics.endRound();
+                tp.notifyRoundMetrics(metrics);
+            }
+        } finally {
+            tp.roundThread = previousRoundThread;
+        }
+    }
+
+    /**
+     * Moves the time forward to the round preceding the next non-idle round, as used by the discrete-event mode.
+     */
+    private void skipIdleRounds() {
+        int next = tp.getNextEventTime(time);
+        long ticksToNextExpiration = listeners.getTicksToNextExpiration();
+        if (ticksToNextExpiration < next - time)
+            next = time + (int) ticksToNextExpiration;
+        if (next == Integer.MAX_VALUE || next <= time + 1)
+            return;
+        int nbSkippedRounds = next - time - 1;
+        time += nbSkippedRounds;
+        listeners.skip(nbSkippedRounds);
     }
 
     private void incrementTime() {
@@ -64,15 +95,16 @@ public class ClockManager {
             time++;
     }
 
+    /**
+     * Calls the {@link Scheduler} with the listeners which expire during this round. The list of expired listeners is
+     * reused from one round to the next.
+     */
     private void callScheduler() {
-        List<ClockListener> expiredListeners = new ArrayList<>();
-        for (ClockListener cl : listeners.keySet()) {
-            countdown.put(cl, countdown.get(cl) - 1);
-            if (countdown.get(cl) == 0) {
-                expiredListeners.add(cl);
-                countdown.put(cl, listeners.get(cl));
-            }
-        }
+        expiredListeners.clear();
+        listeners.tick(expiredListeners);
+        RoundMetrics metrics = tp.roundMetrics;
+        if (metrics != null)
+            metrics.endPhase(RoundMetrics.Phase.CLOCK_LISTENERS);
         tp.getScheduler().onClock(tp, expiredListeners);
     }
 
@@ -109,8 +141,7 @@ public class ClockManager {
      *                 in time units.
      */
     public void addClockListener(ClockListener listener, int period) {
-        listeners.put(listener, period);
-        countdown.put(listener, period);
+        listeners.add(listener, period);
     }
 
     /**
@@ -119,8 +150,7 @@ public class ClockManager {
      * @param listener The listener to register.
      */
     public void addClockListener(ClockListener listener) {
-        listeners.put(listener, 1);
-        countdown.put(listener, 1);
+        listeners.add(listener, 1);
     }
 
     /**
@@ -131,7 +161,6 @@ public class ClockManager {
      */
     public void removeClockListener(ClockListener listener) {
         listeners.remove(listener);
-        countdown.remove(listener);
     }
 
     /**
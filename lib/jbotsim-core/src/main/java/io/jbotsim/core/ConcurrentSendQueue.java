@@ -0,0 +1,105 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * <p>The {@link ConcurrentSendQueue} is a lock-free multiple-producer single-consumer queue, which holds the
+ * {@link Message Messages} sent by a {@link Node} from threads other than the one running the current round.</p>
+ *
+ * <p>Producers push onto a linked stack with a compare-and-set; the consumer detaches the whole stack with a single
+ * atomic swap, and restores the sending order while draining it.</p>
+ */
+class ConcurrentSendQueue {
+    private static final AtomicReferenceFieldUpdater<ConcurrentSendQueue, Entry> HEAD =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentSendQueue.class, Entry.class, "head");
+
+    private volatile Entry head = null;
+
+    /**
+     * Appends the specified message. May be called from any thread.
+     *
+     * @param message the message.
+     */
+    void push(Message message) {
+        Entry entry = new Entry(message);
+        Entry current;
+        do {
+            current = head;
+            entry.next = current;
+        } while (!HEAD.compareAndSet(this, current, entry));
+    }
+
+    /**
+     * Tests whether this queue is empty.
+     *
+     * @return <code>true</code> if no message is waiting in this queue.
+     */
+    boolean isEmpty() {
+        return head == null;
+    }
+
+    /**
+     * Atomically removes every message of this queue, and appends them to the specified list, in sending order.
+     *
+     * @param messages the list to which the messages are appended.
+     */
+    void drainTo(List<Message> messages) {
+        if (head == null)
+            return;
+        appendTo(HEAD.getAndSet(this, null), messages);
+    }
+
+    /**
+     * Appends the messages of this queue to the specified list, in sending order, without removing them.
+     *
+     * @param messages the list to which the messages are appended.
+     */
+    void copyTo(List<Message> messages) {
+        appendTo(head, messages);
+    }
+
+    /**
+     * Removes every message of this queue.
+     */
+    void clear() {
+        head = null;
+    }
+
+    private static void appendTo(Entry entry, List<Message> messages) {
+        int start = messages.size();
+        for (; entry != null; entry = entry.next)
+            messages.add(entry.message);
+        Collections.reverse(messages.subList(start, messages.size()));
+    }
+
+    private static class Entry {
+        final Message message;
+        Entry next;
+
+        Entry(Message message) {
+            this.message = message;
+        }
+    }
+}
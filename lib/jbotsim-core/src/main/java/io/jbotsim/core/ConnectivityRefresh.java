@@ -0,0 +1,205 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import io.jbotsim.core.Link.Mode;
+import io.jbotsim.core.Link.Orientation;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>The {@link ConnectivityRefresh} updates, in one batch, the links and sensed nodes of all the {@link Node Nodes}
+ * touched during a round (see {@link Topology.RefreshMode#CLOCKBASED}).</p>
+ *
+ * <p>It works in three steps:</p>
+ * <ol>
+ *     <li>the pairs of nodes to be checked are gathered, each pair being kept only once, even if both nodes have
+ *     been touched;</li>
+ *     <li>the new link and sensing status of each pair is computed, possibly in parallel, without modifying
+ *     anything;</li>
+ *     <li>the differences are applied (and the listeners notified) on the calling thread, following the order in
+ *     which the nodes have been touched.</li>
+ * </ol>
+ */
+class ConnectivityRefresh {
+    /**
+     * The number of pairs below which a batch is not split any further.
+     */
+    static final int SEQUENTIAL_THRESHOLD = 512;
+
+    private static final byte FIRST_HEARD_BY_SECOND = 1;
+    private static final byte SECOND_HEARD_BY_FIRST = 2;
+    private static final byte SECOND_SENSED_BY_FIRST = 4;
+    private static final byte FIRST_SENSED_BY_SECOND = 8;
+
+    private final Topology topology;
+    private final LinkResolver linkResolver;
+    private final Map<Node, Set<Node>> candidatesPerNode = new HashMap<>();
+    private final List<Node> touchedNodes = new ArrayList<>();
+    private final List<Integer> pairsEnd = new ArrayList<>();
+    private Node[] first = new Node[16];
+    private Node[] second = new Node[16];
+    private byte[] status;
+    private int nbPairs = 0;
+
+    ConnectivityRefresh(Topology topology) {
+        this.topology = topology;
+        this.linkResolver = topology.getLinkResolver();
+    }
+
+    /**
+     * Registers a touched node, along with the nodes it must be checked against. Pairs which have already been
+     * registered from the other side are ignored.
+     *
+     * @param node the touched node.
+     * @param candidates the nodes to be checked against the touched node.
+     */
+    void addNode(Node node, Collection<Node> candidates) {
+        Set<Node> nodeCandidates = new LinkedHashSet<>(candidates);
+        nodeCandidates.remove(node);
+        for (Node candidate : nodeCandidates) {
+            Set<Node> other = candidatesPerNode.get(candidate);
+            if (other == null || !other.contains(node))
+                addPair(node, candidate);
+        }
+        candidatesPerNode.put(node, nodeCandidates);
+        touchedNodes.add(node);
+        pairsEnd.add(nbPairs);
+    }
+
+    private void addPair(Node n1, Node n2) {
+        if (nbPairs == first.length) {
+            first = Arrays.copyOf(first, 2 * nbPairs);
+            second = Arrays.copyOf(second, 2 * nbPairs);
+        }
+        first[nbPairs] = n1;
+        second[nbPairs] = n2;
+        nbPairs++;
+    }
+
+    /**
+     * Returns the number of distinct pairs to be checked.
+     * @return the number of pairs.
+     */
+    int getNbPairs() {
+        return nbPairs;
+    }
+
+    /**
+     * Computes the new status of each registered pair. This step only reads the topology.
+     *
+     * @param pool the {@link ForkJoinPool} to compute in, or <code>null</code> to compute on the calling thread.
+     */
+    void compute(ForkJoinPool pool) {
+        status = new byte[nbPairs];
+        if (pool == null || nbPairs <= SEQUENTIAL_THRESHOLD)
+            computeRange(0, nbPairs);
+        else
+            pool.invoke(new ComputeTask(0, nbPairs));
+    }
+
+    private void computeRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            Node n1 = first[i];
+            Node n2 = second[i];
+            byte s = 0;
+            if (linkResolver.isHeardBy(n1, n2))
+                s |= FIRST_HEARD_BY_SECOND;
+            if (linkResolver.isHeardBy(n2, n1))
+                s |= SECOND_HEARD_BY_FIRST;
+            double distance = n1.distance(n2);
+            if (distance < n1.sensingRange)
+                s |= SECOND_SENSED_BY_FIRST;
+            if (distance < n2.sensingRange)
+                s |= FIRST_SENSED_BY_SECOND;
+            status[i] = s;
+        }
+    }
+
+    /**
+     * Applies the computed differences, touched node after touched node: first the links, then the sensed nodes.
+     * Pairs involving a node which has left the topology in the meantime are skipped.
+     */
+    void apply() {
+        int start = 0;
+        for (int k = 0; k < touchedNodes.size(); k++) {
+            int end = pairsEnd.get(k);
+            for (int i = start; i < end; i++)
+                if (isStillRelevant(i)) {
+                    applyLink(first[i], second[i], (status[i] & FIRST_HEARD_BY_SECOND) != 0);
+                    applyLink(second[i], first[i], (status[i] & SECOND_HEARD_BY_FIRST) != 0);
+                }
+            for (int i = start; i < end; i++)
+                if (isStillRelevant(i)) {
+                    applySensing(first[i], second[i], (status[i] & SECOND_SENSED_BY_FIRST) != 0);
+                    applySensing(second[i], first[i], (status[i] & FIRST_SENSED_BY_SECOND) != 0);
+                }
+            start = end;
+        }
+    }
+
+    private boolean isStillRelevant(int i) {
+        return first[i].topo == topology && second[i].topo == topology;
+    }
+
+    private void applyLink(Node from, Node to, boolean linkExists) {
+        Link l = from.getOutLinkTo(to);
+        if (l == null && linkExists)
+            topology.addLink(new Link(from, to, Orientation.DIRECTED, Mode.WIRELESS));
+        else if (l != null && l.isWireless() && !linkExists)
+            topology.removeLink(l);
+    }
+
+    private void applySensing(Node from, Node to, boolean sensed) {
+        if (sensed) {
+            if (!from.sensedNodes.contains(to)) {
+                from.sensedNodes.add(to);
+                from.onSensingIn(to);
+            }
+        } else if (from.sensedNodes.remove(to)) {
+            from.onSensingOut(to);
+        }
+    }
+
+    private class ComputeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        ComputeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                computeRange(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ComputeTask(from, middle), new ComputeTask(middle, to));
+            }
+        }
+    }
+}
@@ -41,6 +41,10 @@ public class DefaultMessageEngine implements MessageEngine {
 
     protected Topology topology;
     protected boolean debug = false;
+    private MessagePool messagePool = null;
+    private DeliveryTraceBuffer deliveryTraceBuffer = null;
+    private MessageStatistics messageStatistics = null;
+    private final List<Message> collectedMessages = new ArrayList<>();
 
     /**
      * <p>Creates a {@link DefaultMessageEngine}.</p>
@@ -58,17 +62,83 @@ public class DefaultMessageEngine implements MessageEngine {
 
     @Override
     public void onClock() {
-        List<Node> nodes = topology.getNodes();
+        List<Node> nodes = topology.getNodesSnapshot();
 
         clearMailboxes(nodes);
 
-        List<Message> newMessages = collectMessages(nodes);
+        List<Message> newMessages;
+        if (isMessageRecyclingEnabled()) {
+            newMessages = collectedMessages;
+            newMessages.clear();
+            for (Node n : nodes)
+                collectMessages(newMessages, n);
+        } else
+            newMessages = collectMessages(nodes);
         removeIrrelevantMessages(newMessages.listIterator(), nodes);
 
         deliverMessages(newMessages);
 
     }
 
+    /**
+     * <p>Enables the recycling of the {@link Message Messages}.</p>
+     *
+     * <p>When enabled, the delivered {@link Message Messages} are reclaimed when the mailboxes are cleared, at the
+     * beginning of the next round, and reused for the copies made by broadcasts (see {@link Node#sendAll(Message)}).
+     * At most as many {@link Message Messages} as the copies made during the previous round are kept. The list in
+     * which the {@link Message Messages} are collected is also reused from one round to the next.</p>
+     *
+     * <p>Unicast {@link Message Messages} are not taken from the pool: {@link Node#send(Node, Message)} copies the
+     * {@link Message} when it is called, possibly from another thread than the clock thread, to which the pool is
+     * confined. Recycling thus only saves the allocations made by broadcasts; reclaimed unicast
+     * {@link Message Messages} are reused for the next broadcasts.</p>
+     *
+     * <p><b>Note:</b> received {@link Message Messages} are then only valid until the end of the round: neither the
+     * {@link Node Nodes} nor the {@link io.jbotsim.core.event.MessageListener MessageListeners} should keep any
+     * reference to them. A received {@link Message} can still be forwarded, since {@link Node#send(Node, Message)}
+     * copies it.</p>
+     * @see #disableMessageRecycling()
+     */
+    public void enableMessageRecycling() {
+        if (messagePool == null)
+            messagePool = new MessagePool();
+    }
+
+    /**
+     * <p>Disables the recycling of the {@link Message Messages}, which is the default.</p>
+     * @see #enableMessageRecycling()
+     */
+    public void disableMessageRecycling() {
+        messagePool = null;
+        collectedMessages.clear();
+    }
+
+    /**
+     * <p>Tests whether the {@link Message Messages} are recycled.</p>
+     * @return <code>true</code> if the {@link Message Messages} are recycled, <code>false</code> otherwise.
+     * @see #enableMessageRecycling()
+     */
+    public boolean isMessageRecyclingEnabled() {
+        return messagePool != null;
+    }
+
+    MessagePool getMessagePool() {
+        return messagePool;
+    }
+
+    /**
+     * <p>Returns the next round if some {@link Node} has messages to send, {@link Integer#MAX_VALUE} otherwise.</p>
+     * @param currentTime the current round.
+     * @return the next round during which {@link #onClock()} must be called.
+     */
+    @Override
+    public int getNextEventTime(int currentTime) {
+        for (Node node : topology.getNodesSnapshot())
+            if (!node.sendQueue.isEmpty() || !node.concurrentSendQueue.isEmpty())
+                return currentTime + 1;
+        return Integer.MAX_VALUE;
+    }
+
     /**
      * <p>Removes any irrelevant messages from the {@link ListIterator} according to the {@link Collection} of existing
      * {@link Node Nodes}.</p>
@@ -99,7 +169,7 @@ public class DefaultMessageEngine implements MessageEngine {
      * @see #clearMailboxes(Collection)
      */
     protected void clearMailboxes() {
-        clearMailboxes(topology.getNodes());
+        clearMailboxes(topology.getNodesSnapshot());
     }
 
     /**
@@ -108,8 +178,15 @@ public class DefaultMessageEngine implements MessageEngine {
      * @see Node#getMailbox()
      */
     protected void clearMailboxes(Collection<Node> nodes) {
-        for (Node node : nodes)
-            node.getMailbox().clear();
+        if (messagePool != null)
+            messagePool.startRound();
+        for (Node node : nodes) {
+            List<Message> mailbox = node.getMailbox();
+            if (messagePool != null)
+                for (int i = 0; i < mailbox.size(); i++)
+                    messagePool.release(mailbox.get(i));
+            mailbox.clear();
+        }
     }
 
     /**
@@ -118,7 +195,7 @@ public class DefaultMessageEngine implements MessageEngine {
      * @return the {@link List} of {@link Message Messages} that have been collected.
      */
     protected List<Message> collectMessages() {
-        return collectMessages(topology.getNodes());
+        return collectMessages(topology.getNodesSnapshot());
     }
 
     /**
@@ -137,24 +214,43 @@ public class DefaultMessageEngine implements MessageEngine {
     /**
      * <p>Collects outgoing {@link Message Messages} from the specified {@link Node}.</p>
      *
-     * <p>A message with a <code>null</code> destination will be duplicated for each neighbor of the send.</p>
+     * <p>A message with a <code>null</code> destination will be duplicated for each neighbor of the send. The
+     * duplicates only differ by their destination, and share the content and properties of the original message
+     * (see {@link Message#withDestination(Node)}).</p>
+     *
+     * <p>The messages sent from other threads (see {@link Node#send(Node, Message)}) are atomically drained into the
+     * send queue of the node first.</p>
      *
      * @param newMessages a {@link Collection} of {@link Message Messages} in which outgoing messages should be added.
      * @param node the {@link Node} whose outgoing messages should be collected.
      *
-     * @see Node#getOutNeighbors()
+     * @see Node#getOutNeighborsView()
      */
     protected void collectMessages(Collection<Message> newMessages, Node node) {
+        node.concurrentSendQueue.drainTo(node.sendQueue);
         for (Message message : node.sendQueue)
-            if(message.getDestination() == null)
-                for (Node outNeighbor : node.getOutNeighbors())
-                    newMessages.add(message.withDestination(outNeighbor));
-            else
+            if(message.getDestination() == null) {
+                for (Node outNeighbor : node.getOutNeighborsView()) {
+                    Message copy = copyForDestination(message, outNeighbor);
+                    newMessages.add(copy);
+                    countMessage(MessageStatistics.Counter.SENT, copy);
+                }
+                if (messagePool != null)
+                    messagePool.release(message);
+            } else {
                 newMessages.add(message);
+                countMessage(MessageStatistics.Counter.SENT, message);
+            }
 
         node.sendQueue.clear();
     }
 
+    private Message copyForDestination(Message message, Node destination) {
+        if (messagePool != null)
+            return messagePool.withDestination(message, destination);
+        return message.withDestination(destination);
+    }
+
     /**
      * <p>Tests whether the provided {@link Message} is still relevant.</p>
      * <p>To be relevant, an arc must exist between the sender and the destination of the message.</p>
@@ -176,21 +272,36 @@ public class DefaultMessageEngine implements MessageEngine {
      *     <li>the message's sender must still exist</li>
      *     <li>the message's destination must still exist</li>
      * </ul>
+     * <p>The existence of the {@link Node Nodes} is tested in constant time with {@link #isInTopology(Node)}.</p>
+     * <p>The {@link Message} is counted as re-queued or dropped in the {@link MessageStatistics}, if any.</p>
      * @param message the {@link Message} which should be re-queued.
-     * @param existingNodes the {@link Collection} of existing {@link Node Nodes}.
+     * @param existingNodes the {@link Collection} of existing {@link Node Nodes}; kept for compatibility, it is no
+     * longer searched.
      * @see Message#isRetryModeEnabled()
      * @see Message#getSender()
      * @see Message#getDestination()
      */
     protected void requeueIfNeeded(Message message, Collection<Node> existingNodes) {
-        if (!message.isRetryModeEnabled())
-            return;
-        if (!existingNodes.contains(message.getSender()))
-            return;
-        if (!existingNodes.contains(message.getDestination()))
+        if (!message.isRetryModeEnabled() || !isInTopology(message.getSender())
+                || !isInTopology(message.getDestination())) {
+            countMessage(MessageStatistics.Counter.DROPPED, message);
             return;
+        }
 
         requeueMessage(message);
+        countMessage(MessageStatistics.Counter.REQUEUED, message);
+    }
+
+    /**
+     * <p>Tests whether the specified {@link Node} currently belongs to the {@link Topology} of this engine.</p>
+     * <p>The {@link Topology} of a {@link Node} is set by {@link Topology#addNode(Node)} and cleared by
+     * {@link Topology#removeNode(Node)}, hence this test runs in constant time.</p>
+     * @param node the {@link Node} to test.
+     * @return <code>true</code> if the node belongs to the topology of this engine, <code>false</code> otherwise.
+     * @see Node#getTopology()
+     */
+    protected boolean isInTopology(Node node) {
+        return node != null && node.getTopology() == topology;
     }
 
     /**
@@ -217,6 +328,9 @@ public class DefaultMessageEngine implements MessageEngine {
      * @param message the {@link Message} to be delivered.
      */
     protected void deliverMessage(Message message) {
+        if (deliveryTraceBuffer != null)
+            deliveryTraceBuffer.record(topology.getTime(), message);
+        countMessage(MessageStatistics.Counter.DELIVERED, message);
         message.getDestination().getMailbox().add(message);
         message.getDestination().onMessage(message);
         topology.notifyMessageDelivered(message);
@@ -228,17 +342,68 @@ public class DefaultMessageEngine implements MessageEngine {
         this.debug = debug;
     }
 
+    /**
+     * <p>Sets the {@link DeliveryTraceBuffer} in which each delivery is recorded.</p>
+     *
+     * <p>The buffer is filled without allocation on the thread running the rounds, and is meant to be read by
+     * another thread. When no buffer is set, the tracing costs a single test per delivery.</p>
+     *
+     * @param deliveryTraceBuffer the {@link DeliveryTraceBuffer} to fill, or <code>null</code> to disable tracing.
+     */
+    public void setDeliveryTraceBuffer(DeliveryTraceBuffer deliveryTraceBuffer) {
+        this.deliveryTraceBuffer = deliveryTraceBuffer;
+    }
+
+    /**
+     * <p>Gets the {@link DeliveryTraceBuffer} in which each delivery is recorded.</p>
+     *
+     * @return the current {@link DeliveryTraceBuffer}, or <code>null</code> if tracing is disabled.
+     */
+    public DeliveryTraceBuffer getDeliveryTraceBuffer() {
+        return deliveryTraceBuffer;
+    }
+
+    /**
+     * <p>Sets the {@link MessageStatistics} in which the {@link Message Messages} sent, delivered, dropped and
+     * re-queued by this engine are counted.</p>
+     *
+     * @param messageStatistics the {@link MessageStatistics} to update, or <code>null</code> to disable counting.
+     */
+    public void setMessageStatistics(MessageStatistics messageStatistics) {
+        this.messageStatistics = messageStatistics;
+    }
+
+    /**
+     * <p>Gets the {@link MessageStatistics} in which the {@link Message Messages} are counted.</p>
+     *
+     * @return the current {@link MessageStatistics}, or <code>null</code> if counting is disabled.
+     */
+    public MessageStatistics getMessageStatistics() {
+        return messageStatistics;
+    }
+
+    /**
+     * <p>Counts an event on the specified {@link Message} in the current {@link MessageStatistics}, if any.</p>
+     *
+     * @param counter the {@link MessageStatistics.Counter} to increment.
+     * @param message the {@link Message}.
+     */
+    protected void countMessage(MessageStatistics.Counter counter, Message message) {
+        if (messageStatistics != null)
+            messageStatistics.record(counter, message, topology.getTime());
+    }
+
     /**
      * <p>Resets the {@link DefaultMessageEngine}.</p>
      * <ul>
      *   <li>Any {@link Message} (ready to be sent or ready to be received) handled by the
      * {@link DefaultMessageEngine} is discarded.</li>
-     *   <li>Other configurations (debug, topology) remain untouched.</li>
+     *   <li>Other configurations (debug, delivery tracing, statistics, topology) remain untouched.</li>
      * </ul>
      */
     @Override
     public void reset() {
-        List<Node> nodes = topology.getNodes();
+        List<Node> nodes = topology.getNodesSnapshot();
         clearMailboxes(nodes);
         clearSendQueues(nodes);
     }
@@ -248,7 +413,7 @@ public class DefaultMessageEngine implements MessageEngine {
      * @see #clearSendQueues(Collection)
      */
     protected void clearSendQueues() {
-        clearSendQueues(topology.getNodes());
+        clearSendQueues(topology.getNodesSnapshot());
     }
 
     /**
@@ -256,8 +421,10 @@ public class DefaultMessageEngine implements MessageEngine {
      * @param nodes a {@link Collection} of {@link Node} whose send queues should be cleared.
      */
     protected void clearSendQueues(Collection<Node> nodes) {
-        for (Node node: nodes)
+        for (Node node: nodes) {
             node.sendQueue.clear();
+            node.concurrentSendQueue.clear();
+        }
     }
 
 }
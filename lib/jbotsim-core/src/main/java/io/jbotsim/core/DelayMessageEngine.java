@@ -20,6 +20,8 @@
  */
 package io.jbotsim.core;
 
+import io.jbotsim.core.event.ConnectivityListener;
+
 import java.util.*;
 
 /**
@@ -39,8 +41,14 @@ import java.util.*;
  * <h3><code>Link</code> checks</h3>
  * <p>By default, each round,  the {@link DelayMessageEngine} checks for each {@link Message}
  * that the corresponding {@link Link} is still present. If not, the {@link Message} is dropped.</p>
- * <p>The time spent doing this rises with the delay and the number of {@link Node Nodes} and {@link Message Messages}.
- * Depending on your case, you might want to disable this using {@link #disableLinksContinuityChecks()}.</p>
+ * <p>These checks are driven by the removals of arcs: the arcs removed during a round which are still missing at the
+ * beginning of the next one are recorded, and the {@link Message Messages} sent on them before that round are
+ * dropped, instead of scanning every delayed {@link Message} on each round. A recorded break is forgotten once every
+ * pending {@link Message} has been cached after it. You might still disable them using
+ * {@link #disableLinksContinuityChecks()}.</p>
+ *
+ * <p>The delayed {@link Message Messages} are stored in a circular timing wheel indexed by delivery date, which grows
+ * as needed to cover the longest pending delay.</p>
  */
 public class DelayMessageEngine extends DefaultMessageEngine {
 
@@ -59,7 +67,27 @@ public class DelayMessageEngine extends DefaultMessageEngine {
     public static final int DEFAULT_DELAY = DELAY_INSTANT;
     private int delay;
 
-    protected Map<Integer, List<Message>> delayedMessages = new HashMap<>();
+    private static final int INITIAL_WHEEL_SIZE = 16;
+
+    private DelaySlot[] wheel = new DelaySlot[INITIAL_WHEEL_SIZE];
+    private int nbDelayedMessages = 0;
+    private final Map<Node, Map<Node, Set<Message>>> delayedRetryMessages = new HashMap<>();
+    private int nbDelayedRetryMessages = 0;
+    private final Map<Node, Map<Node, Integer>> lastBreakTimes = new HashMap<>();
+    private final ArrayDeque<LinkBreak> linkBreaks = new ArrayDeque<>();
+    private final List<Link> removedArcs = new ArrayList<>();
+    private final ConnectivityListener arcRemovalListener = new ConnectivityListener() {
+        @Override
+        public void onLinkAdded(Link link) {
+        }
+
+        @Override
+        public void onLinkRemoved(Link link) {
+            if (nbDelayedMessages > 0 && shouldCheckLinksContinuity())
+                removedArcs.add(link);
+        }
+    };
+    private Topology listenedTopology = null;
 
     protected int currentTime;
     private boolean shouldCheckLinksContinuity = true;
@@ -148,8 +176,9 @@ public class DelayMessageEngine extends DefaultMessageEngine {
     @Override
     public void onClock() {
         currentTime = topology.getTime();
+        listenToArcRemovals();
 
-        List<Node> nodes = topology.getNodes();
+        List<Node> nodes = topology.getNodesSnapshot();
 
         clearMailboxes(nodes);
 
@@ -158,8 +187,48 @@ public class DelayMessageEngine extends DefaultMessageEngine {
 
         List<Message> messagesToSend = getMessagesToSend(newMessages, nodes);
         deliverMessages(messagesToSend);
+        recordLatencies(messagesToSend);
 
-        delayedMessages.remove(currentTime);
+        releaseSlot(currentTime);
+    }
+
+    private void listenToArcRemovals() {
+        if (listenedTopology == topology)
+            return;
+        stopListeningToArcRemovals();
+        listenedTopology = topology;
+        listenedTopology.addConnectivityListener(arcRemovalListener, Link.Orientation.DIRECTED);
+    }
+
+    private void stopListeningToArcRemovals() {
+        if (listenedTopology != null)
+            listenedTopology.removeConnectivityListener(arcRemovalListener, Link.Orientation.DIRECTED);
+        listenedTopology = null;
+        removedArcs.clear();
+    }
+
+    /**
+     * <p>Stops listening to the removals of arcs of the {@link Topology}; they are listened to again if this engine
+     * is used again.</p>
+     */
+    @Override
+    public void onReplaced() {
+        stopListeningToArcRemovals();
+    }
+
+    /**
+     * <p>Returns the earliest round among the next round, if some {@link Node} has messages to send, and the delivery
+     * dates of the delayed {@link Message Messages}.</p>
+     * @param currentTime the current round.
+     * @return the next round during which {@link #onClock()} must be called.
+     */
+    @Override
+    public int getNextEventTime(int currentTime) {
+        int next = super.getNextEventTime(currentTime);
+        for (DelaySlot slot : wheel)
+            if (slot != null && !slot.isEmpty() && slot.time > currentTime && slot.time < next)
+                next = slot.time;
+        return next;
     }
 
     /**
@@ -171,39 +240,176 @@ public class DelayMessageEngine extends DefaultMessageEngine {
     protected List<Message> getMessagesToSend(List<Message> newMessages, Collection<Node> existingNodes) {
         List<Message> currentDateMessages;
 
+        if(shouldCheckLinksContinuity())
+            recordLinkBreaks(existingNodes);
+
         if (noCachingNeeded(newMessages))
             currentDateMessages = newMessages;
         else {
-            if(shouldCheckLinksContinuity())
-                removeIrrelevantMessages(existingNodes);
-
             cacheNewMessages(newMessages);
             currentDateMessages = getMessagesForCurrentDate();
 
-            if(!shouldCheckLinksContinuity())
-                removeIrrelevantMessages(currentDateMessages.listIterator(), existingNodes);
+            if(!shouldCheckLinksContinuity()) {
+                DelaySlot slot = getSlot(currentTime);
+                if (slot != null && slot.messages == currentDateMessages)
+                    removeIrrelevantMessages(slot, existingNodes);
+                else
+                    removeIrrelevantMessages(currentDateMessages.listIterator(), existingNodes);
+            }
         }
         return currentDateMessages;
     }
 
+    /**
+     * <p>Records the latency of the delivered {@link Message Messages} in the {@link MessageStatistics}, if any.</p>
+     * @param deliveredMessages the {@link Message Messages} delivered during this round.
+     */
+    private void recordLatencies(List<Message> deliveredMessages) {
+        MessageStatistics statistics = getMessageStatistics();
+        if (statistics == null)
+            return;
+        DelaySlot slot = getSlot(currentTime);
+        if (slot != null && slot.messages == deliveredMessages)
+            for (int i = 0; i < slot.nbCached; i++)
+                statistics.recordLatency(currentTime - slot.cacheTimes[i] + 1);
+        else
+            for (int i = 0; i < deliveredMessages.size(); i++)
+                statistics.recordLatency(DELAY_INSTANT);
+    }
+
     /**
      * <p>Tests whether the provided list of {@link Message Messages} should be cached or not.</p>
      * @param newMessages a {@link List} containing new {@link Message Messages}.
      * @return <code>true</code> if the provided messages should not be cached.
      */
     protected boolean noCachingNeeded(List<Message> newMessages) {
-        return getDelay() == DELAY_INSTANT && delayedMessages.isEmpty();
+        return getDelay() == DELAY_INSTANT && nbDelayedMessages == 0;
     }
 
     /**
      * <p>Removes any irrelevant messages from the cached delayed messages, according to the {@link Collection} of
      * existing {@link Node Nodes}.</p>
+     *
+     * <p>This method scans every delayed {@link Message}; it is no longer used by the continuity checks, which only
+     * consider the removed arcs.</p>
      * @param existingNodes the {@link Collection} of existing {@link Node Nodes}.
      * @see #removeIrrelevantMessages(ListIterator, Collection)
      */
     protected void removeIrrelevantMessages(Collection<Node> existingNodes) {
-        for (List<Message> messageList : delayedMessages.values())
-            removeIrrelevantMessages(messageList.listIterator(), existingNodes);
+        for (DelaySlot slot : wheel)
+            if (slot != null && !slot.isEmpty())
+                removeIrrelevantMessages(slot, existingNodes);
+    }
+
+    private void removeIrrelevantMessages(DelaySlot slot, Collection<Node> existingNodes) {
+        removeMessages(slot, (message, cacheTime) -> {
+            if (isMessageStillRelevant(message))
+                return false;
+            requeueIfNeeded(message, existingNodes);
+            return true;
+        });
+    }
+
+    /**
+     * <p>Records the arcs removed since the previous round which are still missing, and re-queues the delayed
+     * {@link Message Messages} sent on them in retry mode. The other {@link Message Messages} sent on them are dropped
+     * when their delivery date comes.</p>
+     * @param existingNodes the {@link Collection} of existing {@link Node Nodes}.
+     */
+    private void recordLinkBreaks(Collection<Node> existingNodes) {
+        pruneLinkBreaks();
+        for (Link arc : removedArcs) {
+            if (arc.source.hasOutNeighbor(arc.destination))
+                continue;
+            lastBreakTimes.computeIfAbsent(arc.source, n -> new HashMap<>()).put(arc.destination, currentTime);
+            linkBreaks.addLast(new LinkBreak(arc.source, arc.destination, currentTime));
+            Map<Node, Set<Message>> retryMessagesByDestination = delayedRetryMessages.get(arc.source);
+            if (retryMessagesByDestination == null)
+                continue;
+            Set<Message> retryMessages = retryMessagesByDestination.remove(arc.destination);
+            if (retryMessages == null)
+                continue;
+            if (retryMessagesByDestination.isEmpty())
+                delayedRetryMessages.remove(arc.source);
+            nbDelayedRetryMessages -= retryMessages.size();
+            for (Message message : retryMessages)
+                requeueIfNeeded(message, existingNodes);
+        }
+        removedArcs.clear();
+    }
+
+    /**
+     * <p>Forgets the link breaks which no pending {@link Message} was cached before, so that the break times do not
+     * accumulate under continuous traffic, nor keep the removed {@link Node Nodes} reachable.</p>
+     */
+    private void pruneLinkBreaks() {
+        if (linkBreaks.isEmpty())
+            return;
+        int oldestCacheTime = getOldestCacheTime();
+        while (!linkBreaks.isEmpty() && linkBreaks.peekFirst().time <= oldestCacheTime) {
+            LinkBreak linkBreak = linkBreaks.pollFirst();
+            Map<Node, Integer> breakTimes = lastBreakTimes.get(linkBreak.source);
+            if (breakTimes == null)
+                continue;
+            Integer breakTime = breakTimes.get(linkBreak.destination);
+            // the arc may have broken again since then
+            if (breakTime == null || breakTime != linkBreak.time)
+                continue;
+            breakTimes.remove(linkBreak.destination);
+            if (breakTimes.isEmpty())
+                lastBreakTimes.remove(linkBreak.source);
+        }
+    }
+
+    /**
+     * <p>Returns the date at which the oldest pending {@link Message} was cached. The cache dates of a slot are
+     * increasing, hence the first one is the oldest of the slot.</p>
+     * @return the oldest cache date, {@link Integer#MAX_VALUE} if no {@link Message} is pending.
+     */
+    private int getOldestCacheTime() {
+        int oldest = Integer.MAX_VALUE;
+        if (nbDelayedMessages > 0)
+            for (DelaySlot slot : wheel)
+                if (slot != null && slot.nbCached > 0)
+                    oldest = Math.min(oldest, slot.cacheTimes[0]);
+        return oldest;
+    }
+
+    int getNbLinkBreaks() {
+        int nbLinkBreaks = 0;
+        for (Map<Node, Integer> breakTimes : lastBreakTimes.values())
+            nbLinkBreaks += breakTimes.size();
+        return nbLinkBreaks;
+    }
+
+    private void addDelayedRetryMessage(Message message) {
+        Set<Message> retryMessages = delayedRetryMessages.computeIfAbsent(message.getSender(), n -> new HashMap<>())
+                .computeIfAbsent(message.getDestination(), n -> new LinkedHashSet<>());
+        if (retryMessages.add(message))
+            nbDelayedRetryMessages++;
+    }
+
+    private void removeDelayedRetryMessage(Message message) {
+        Map<Node, Set<Message>> retryMessagesByDestination = delayedRetryMessages.get(message.getSender());
+        if (retryMessagesByDestination == null)
+            return;
+        Set<Message> retryMessages = retryMessagesByDestination.get(message.getDestination());
+        if (retryMessages == null || !retryMessages.remove(message))
+            return;
+        nbDelayedRetryMessages--;
+        if (retryMessages.isEmpty()) {
+            retryMessagesByDestination.remove(message.getDestination());
+            if (retryMessagesByDestination.isEmpty())
+                delayedRetryMessages.remove(message.getSender());
+        }
+    }
+
+    private boolean isBroken(Message message, int cacheTime) {
+        Map<Node, Integer> breakTimes = lastBreakTimes.get(message.getSender());
+        if (breakTimes == null)
+            return false;
+        Integer breakTime = breakTimes.get(message.getDestination());
+        return breakTime != null && breakTime > cacheTime;
     }
 
     /**
@@ -261,10 +467,16 @@ public class DelayMessageEngine extends DefaultMessageEngine {
      * @param deliveryTime the round number at which the messages should be delivered.
      */
     protected void cacheMessagesAtTime(List<Message> messages, int deliveryTime) {
-        if(delayedMessages.containsKey(deliveryTime))
-            delayedMessages.get(deliveryTime).addAll(messages);
-        else
-            delayedMessages.put(deliveryTime, messages);
+        if (messages.isEmpty())
+            return;
+        DelaySlot slot = getOrCreateSlot(Math.max(deliveryTime, currentTime));
+        boolean tracksRetries = shouldCheckLinksContinuity();
+        for (Message message : messages) {
+            slot.add(message, currentTime);
+            if (tracksRetries && message.isRetryModeEnabled())
+                addDelayedRetryMessage(message);
+        }
+        nbDelayedMessages += messages.size();
     }
 
     /**
@@ -274,8 +486,98 @@ public class DelayMessageEngine extends DefaultMessageEngine {
      * current round. Can be empty, but not null.
      */
     protected List<Message> getMessagesForCurrentDate() {
-        List<Message> messages = delayedMessages.get(currentTime);
-        return messages != null ? messages : new ArrayList<>();
+        DelaySlot slot = getSlot(currentTime);
+        if (slot == null)
+            return new ArrayList<>();
+        if (shouldCheckLinksContinuity() && !lastBreakTimes.isEmpty())
+            removeMessages(slot, (message, cacheTime) -> {
+                if (!isBroken(message, cacheTime))
+                    return false;
+                // retry messages have already been re-queued (or dropped) when the break was recorded
+                if (!message.isRetryModeEnabled())
+                    countMessage(MessageStatistics.Counter.DROPPED, message);
+                if (message.isRetryModeEnabled())
+                    removeDelayedRetryMessage(message);
+                return true;
+            });
+        return slot.messages;
+    }
+
+    private DelaySlot getSlot(int time) {
+        DelaySlot slot = wheel[time & (wheel.length - 1)];
+        if (slot == null || slot.isEmpty() || slot.time != time)
+            return null;
+        return slot;
+    }
+
+    private DelaySlot getOrCreateSlot(int time) {
+        while (true) {
+            int index = time & (wheel.length - 1);
+            DelaySlot slot = wheel[index];
+            if (slot == null) {
+                slot = new DelaySlot();
+                wheel[index] = slot;
+            }
+            if (slot.isEmpty())
+                slot.time = time;
+            if (slot.time == time)
+                return slot;
+            growWheel();
+        }
+    }
+
+    private void growWheel() {
+        DelaySlot[] previous = wheel;
+        int size = previous.length;
+        boolean isPlaced;
+        do {
+            size *= 2;
+            wheel = new DelaySlot[size];
+            isPlaced = true;
+            for (DelaySlot slot : previous) {
+                if (slot == null || slot.isEmpty())
+                    continue;
+                int index = slot.time & (size - 1);
+                if (wheel[index] != null) {
+                    isPlaced = false;
+                    break;
+                }
+                wheel[index] = slot;
+            }
+        } while (!isPlaced);
+    }
+
+    private void removeMessages(DelaySlot slot, DelayedMessageFilter filter) {
+        List<Message> messages = slot.messages;
+        int nbKept = 0;
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            int cacheTime = slot.cacheTimes[i];
+            if (filter.shouldRemove(message, cacheTime))
+                continue;
+            messages.set(nbKept, message);
+            slot.cacheTimes[nbKept] = cacheTime;
+            nbKept++;
+        }
+        nbDelayedMessages -= slot.nbCached - nbKept;
+        slot.nbCached = nbKept;
+        messages.subList(nbKept, messages.size()).clear();
+    }
+
+    private void releaseSlot(int time) {
+        DelaySlot slot = getSlot(time);
+        if (slot == null)
+            return;
+        if (nbDelayedRetryMessages > 0)
+            for (Message message : slot.messages)
+                if (message.isRetryModeEnabled())
+                    removeDelayedRetryMessage(message);
+        nbDelayedMessages -= slot.nbCached;
+        slot.clear();
+        if (nbDelayedMessages == 0) {
+            lastBreakTimes.clear();
+            linkBreaks.clear();
+        }
     }
 
     /**
@@ -307,8 +609,60 @@ public class DelayMessageEngine extends DefaultMessageEngine {
     @Override
     public void reset() {
         super.reset();
-        delayedMessages.clear();
+        for (DelaySlot slot : wheel)
+            if (slot != null)
+                slot.clear();
+        nbDelayedMessages = 0;
+        delayedRetryMessages.clear();
+        nbDelayedRetryMessages = 0;
+        lastBreakTimes.clear();
+        linkBreaks.clear();
+        removedArcs.clear();
+    }
+
+    /**
+     * The break of an arc, recorded in chronological order.
+     */
+    private static class LinkBreak {
+        final Node source;
+        final Node destination;
+        final int time;
+
+        LinkBreak(Node source, Node destination, int time) {
+            this.source = source;
+            this.destination = destination;
+            this.time = time;
+        }
     }
 
+    private interface DelayedMessageFilter {
+        boolean shouldRemove(Message message, int cacheTime);
+    }
+
+    /**
+     * The {@link Message Messages} to be delivered at a given date, along with the dates at which they were cached.
+     */
+    private static class DelaySlot {
+        int time;
+        final List<Message> messages = new ArrayList<>();
+        int[] cacheTimes = new int[8];
+        int nbCached = 0;
+
+        void add(Message message, int cacheTime) {
+            if (nbCached == cacheTimes.length)
+                cacheTimes = Arrays.copyOf(cacheTimes, 2 * nbCached);
+            messages.add(message);
+            cacheTimes[nbCached++] = cacheTime;
+        }
+
+        boolean isEmpty() {
+            return nbCached == 0 && messages.isEmpty();
+        }
+
+        void clear() {
+            messages.clear();
+            nbCached = 0;
+        }
+    }
 
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToIntFunction;
+
+/**
+ * <p>The {@link DeliveryTraceBuffer} is a fixed-size ring buffer of {@link Message} delivery records, filled by a
+ * {@link DefaultMessageEngine} (see {@link DefaultMessageEngine#setDeliveryTraceBuffer(DeliveryTraceBuffer)}) and
+ * read by another thread, typically an exporter.</p>
+ *
+ * <p>Each record is made of {@link #RECORD_SIZE} integers: the delivery time ({@link #TIME}), the identifiers of the
+ * sender ({@link #SENDER_ID}) and of the destination ({@link #DESTINATION_ID}), the hash code of the flag
+ * ({@link #FLAG_HASH}) and an estimate of the size of the message ({@link #SIZE}).</p>
+ *
+ * <p>Recording a delivery neither allocates nor locks. When the reader does not keep up, the oldest records are
+ * overwritten, and counted as lost by {@link #read(int[])}. There must be a single writer and a single reader.</p>
+ */
+public class DeliveryTraceBuffer {
+    /**
+     * The number of integers of a record.
+     */
+    public static final int RECORD_SIZE = 5;
+    /**
+     * The offset of the delivery time in a record.
+     */
+    public static final int TIME = 0;
+    /**
+     * The offset of the sender identifier in a record.
+     */
+    public static final int SENDER_ID = 1;
+    /**
+     * The offset of the destination identifier in a record.
+     */
+    public static final int DESTINATION_ID = 2;
+    /**
+     * The offset of the hash code of the flag in a record.
+     */
+    public static final int FLAG_HASH = 3;
+    /**
+     * The offset of the size estimate in a record.
+     */
+    public static final int SIZE = 4;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicIntegerArray records;
+    private final AtomicLongArray sequences;
+    private final AtomicLong nbWritten = new AtomicLong();
+    private long nbRead = 0;
+    private long nbLost = 0;
+    private ToIntFunction<Message> sizeEstimator = DeliveryTraceBuffer::estimateSize;
+
+    /**
+     * Creates a {@link DeliveryTraceBuffer}.
+     *
+     * @param capacity the number of records the buffer can hold, rounded up to the next power of two.
+     */
+    public DeliveryTraceBuffer(int capacity) {
+        assert (capacity > 0);
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.records = new AtomicIntegerArray(size * RECORD_SIZE);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.lazySet(i, -1);
+    }
+
+    /**
+     * Returns the number of records the buffer can hold.
+     *
+     * @return the capacity of the buffer.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the function estimating the size of the recorded {@link Message Messages}. It must not allocate to keep
+     * the recording allocation-free. By default, the size of strings, arrays of primitives and boxed primitives is
+     * estimated, in bytes, and other contents are given a size of <code>0</code>.
+     *
+     * @param sizeEstimator the function estimating the size of a {@link Message}.
+     */
+    public void setSizeEstimator(ToIntFunction<Message> sizeEstimator) {
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    /**
+     * Records the delivery of the specified {@link Message}. Must only be called by the writer thread.
+     *
+     * @param time    the delivery time.
+     * @param message the delivered {@link Message}.
+     */
+    public void record(int time, Message message) {
+        long sequence = nbWritten.get();
+        int slot = (int) (sequence & mask);
+        int offset = slot * RECORD_SIZE;
+        // The "in progress" marker must be visible before any field of the record: a volatile store, not a release
+        // one, which would let the following stores of the fields move before it.
+        sequences.set(slot, -1);
+        records.lazySet(offset + TIME, time);
+        records.lazySet(offset + SENDER_ID, message.getSender().getID());
+        records.lazySet(offset + DESTINATION_ID, message.getDestination().getID());
+        records.lazySet(offset + FLAG_HASH, message.getFlag() == null ? 0 : message.getFlag().hashCode());
+        records.lazySet(offset + SIZE, sizeEstimator.applyAsInt(message));
+        sequences.lazySet(slot, sequence);
+        nbWritten.lazySet(sequence + 1);
+    }
+
+    /**
+     * Copies the oldest unread records into the specified array, {@link #RECORD_SIZE} integers per record. Must only
+     * be called by the reader thread.
+     *
+     * @param destination the array into which the records are copied.
+     * @return the number of records copied.
+     */
+    public int read(int[] destination) {
+        int maxRecords = destination.length / RECORD_SIZE;
+        long written = nbWritten.get();
+        if (written - nbRead > capacity) {
+            nbLost += written - capacity - nbRead;
+            nbRead = written - capacity;
+        }
+        int nbCopied = 0;
+        while (nbCopied < maxRecords && nbRead < written) {
+            long sequence = nbRead++;
+            int slot = (int) (sequence & mask);
+            int offset = slot * RECORD_SIZE;
+            int target = nbCopied * RECORD_SIZE;
+            if (sequences.get(slot) != sequence) {
+                nbLost++;
+                continue;
+            }
+            for (int i = 0; i < RECORD_SIZE; i++)
+                destination[target + i] = records.get(offset + i);
+            // The fields are read with volatile loads, so that this check cannot move before them.
+            if (sequences.get(slot) != sequence) {
+                nbLost++;
+                continue;
+            }
+            nbCopied++;
+        }
+        return nbCopied;
+    }
+
+    /**
+     * Returns the number of records written since the creation of the buffer.
+     *
+     * @return the number of records written.
+     */
+    public long getNbWrittenRecords() {
+        return nbWritten.get();
+    }
+
+    /**
+     * Returns the number of records which have been overwritten before being read. Must only be called by the reader
+     * thread.
+     *
+     * @return the number of lost records.
+     */
+    public long getNbLostRecords() {
+        return nbLost;
+    }
+
+    /**
+     * Estimates the size, in bytes, of the content of the specified {@link Message}, without allocating.
+     *
+     * @param message the {@link Message}.
+     * @return the estimated size of its content, <code>0</code> if unknown.
+     */
+    public static int estimateSize(Message message) {
+        Object content = message.getContent();
+        if (content instanceof String)
+            return 2 * ((String) content).length();
+        if (content instanceof byte[])
+            return ((byte[]) content).length;
+        if (content instanceof int[])
+            return 4 * ((int[]) content).length;
+        if (content instanceof long[])
+            return 8 * ((long[]) content).length;
+        if (content instanceof double[])
+            return 8 * ((double[]) content).length;
+        if (content instanceof Long || content instanceof Double)
+            return 8;
+        if (content instanceof Number)
+            return 4;
+        if (content instanceof Character || content instanceof Boolean)
+            return 2;
+        return 0;
+    }
+}
@@ -258,6 +258,21 @@ public class Link extends Properties implements Comparable<Link> {
                     (l.source == this.destination && l.destination == this.source);
     }
 
+    /**
+     * Returns a hash code consistent with {@link #equals(Object)}: it depends
+     * on the <code>orientation</code> and on the endpoints (regardless of
+     * their order if undirected), but not on the <code>mode</code>.
+     */
+    @Override
+    public int hashCode() {
+        int h1 = System.identityHashCode(source);
+        int h2 = System.identityHashCode(destination);
+        if (orientation == Orientation.DIRECTED)
+            return 31 * (31 * h1 + h2) + orientation.ordinal();
+        else
+            return 31 * (h1 + h2) + orientation.ordinal();
+    }
+
     /**
      * Compares the specified link to this link in terms of length.
      */
@@ -35,4 +35,19 @@ public class LinkResolver {
         return (n1.isWirelessEnabled() && n2.isWirelessEnabled()
                 && n1.distance(n2) <= n1.getCommunicationRange());
     }
+
+    /**
+     * <p>Indicates whether {@link #isHeardBy(Node, Node)} can only return <code>true</code> when the receiver is
+     * located within the communication range of the emitter.</p>
+     *
+     * <p>When it does, the {@link Topology} only checks nearby {@link Node Nodes} while updating wireless links.
+     * Subclasses which may link farther nodes (e.g. using another distance) must return <code>false</code>.
+     * By default, only the base {@link LinkResolver} is considered as bounded.</p>
+     *
+     * @return <code>true</code> if links never exceed the emitter's communication range; <code>false</code>
+     * otherwise.
+     */
+    public boolean isBoundedByCommunicationRange() {
+        return getClass() == LinkResolver.class;
+    }
 }
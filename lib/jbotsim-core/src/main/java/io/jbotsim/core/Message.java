@@ -32,6 +32,7 @@ public final class Message extends Properties {
     protected Object content;
     protected boolean retryMode;
     protected String flag;
+    private boolean sharesProperties = false;
 
     /**
      * Default constructor with empty content
@@ -113,14 +114,73 @@ public final class Message extends Properties {
         this.properties = new HashMap<>(message.properties);
     }
 
+    /**
+     * Lightweight copy constructor, used for broadcasts: the new message shares the content and the properties of the
+     * original one, the properties being only copied when either message modifies them.
+     *
+     * @param message     The original message.
+     * @param destination The destination of the new message.
+     */
+    private Message(Message message, Node destination) {
+        super(message.properties);
+        share(message, destination);
+    }
+
+    /**
+     * Turns this message into a lightweight copy of the specified message, as done by
+     * {@link #withDestination(Node)}. Used by {@link MessagePool} to recycle messages.
+     *
+     * @param message     The original message.
+     * @param destination The new destination of this message.
+     * @return this message.
+     */
+    Message reuse(Message message, Node destination) {
+        this.properties = message.properties;
+        this.propertyListeners = null;
+        share(message, destination);
+        return this;
+    }
+
+    private void share(Message message, Node destination) {
+        this.sender = message.sender;
+        this.destination = destination;
+        this.content = message.content;
+        this.retryMode = message.retryMode;
+        this.flag = message.flag;
+        this.sharesProperties = true;
+        message.sharesProperties = true;
+    }
+
     /**
      * Copy the current message, changing only the destination.
      *
+     * <p>The properties of the original message are shared until either message modifies them, so that broadcasting
+     * a message to many neighbors does not copy them for each neighbor.</p>
+     *
      * @param newDestination The new destination of the message.
      * @return the new {@link Message} object.
      */
     public Message withDestination(Node newDestination) {
-        return new Message(this.getSender(), newDestination, this);
+        return new Message(this, newDestination);
+    }
+
+    @Override
+    public void setProperty(String key, Object value) {
+        unshareProperties();
+        super.setProperty(key, value);
+    }
+
+    @Override
+    public void removeProperty(String key) {
+        unshareProperties();
+        super.removeProperty(key);
+    }
+
+    private void unshareProperties() {
+        if (sharesProperties) {
+            properties = new HashMap<>(properties);
+            sharesProperties = false;
+        }
     }
 
     /**
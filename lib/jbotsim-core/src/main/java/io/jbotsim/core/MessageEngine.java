@@ -44,4 +44,27 @@ public interface MessageEngine {
      * <p>Resets the {@link MessageEngine}.</p>
      */
     void reset();
+
+    /**
+     * <p>Returns the next round during which {@link #onClock()} has something to do, as used by the discrete-event
+     * mode of the {@link Topology} (see {@link Topology#enableDiscreteEventMode()}).</p>
+     *
+     * <p>The default implementation returns the next round, so that no round is ever skipped.</p>
+     *
+     * @param currentTime the current round.
+     * @return the next round during which {@link #onClock()} must be called, or {@link Integer#MAX_VALUE} if there
+     * is none.
+     */
+    default int getNextEventTime(int currentTime) {
+        return currentTime + 1;
+    }
+
+    /**
+     * <p>Called by {@link Topology#setMessageEngine(MessageEngine)} when this {@link MessageEngine} is replaced by
+     * another one, so that it can release what it registered on the {@link Topology}, such as listeners.</p>
+     *
+     * <p>The default implementation does nothing.</p>
+     */
+    default void onReplaced() {
+    }
 }
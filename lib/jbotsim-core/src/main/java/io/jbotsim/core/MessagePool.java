@@ -0,0 +1,83 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import java.util.ArrayList;
+
+/**
+ * <p>The {@link MessagePool} keeps the {@link Message Messages} reclaimed by a {@link DefaultMessageEngine}, in order
+ * to reuse them for the next broadcasts.</p>
+ *
+ * <p>At the beginning of each round (see {@link #startRound()}), the pool keeps at most as many
+ * {@link Message Messages} as the number of copies requested during the previous round: the other reclaimed
+ * {@link Message Messages} are dropped, so that the pool does not grow under unicast traffic.</p>
+ */
+class MessagePool {
+    private final ArrayList<Message> freeMessages = new ArrayList<>();
+    private int nbRequestedMessages = 0;
+
+    /**
+     * Starts a new round: the capacity of the pool becomes the number of copies requested since the previous call, and
+     * the messages beyond this capacity are dropped.
+     */
+    void startRound() {
+        int capacity = nbRequestedMessages;
+        nbRequestedMessages = 0;
+        int size = freeMessages.size();
+        if (size > capacity)
+            freeMessages.subList(capacity, size).clear();
+    }
+
+    /**
+     * Returns a copy of the specified message with the specified destination, reusing a reclaimed {@link Message} if
+     * any.
+     *
+     * @param message     the original message.
+     * @param destination the destination of the copy.
+     * @return the copy.
+     * @see Message#withDestination(Node)
+     */
+    Message withDestination(Message message, Node destination) {
+        nbRequestedMessages++;
+        int size = freeMessages.size();
+        if (size == 0)
+            return message.withDestination(destination);
+        return freeMessages.remove(size - 1).reuse(message, destination);
+    }
+
+    /**
+     * Reclaims the specified message, which must no longer be referenced.
+     *
+     * @param message the message.
+     */
+    void release(Message message) {
+        freeMessages.add(message);
+    }
+
+    /**
+     * Returns the number of reclaimed messages waiting to be reused.
+     *
+     * @return the number of available messages.
+     */
+    int size() {
+        return freeMessages.size();
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>The {@link MessageStatistics} count the {@link Message Messages} handled by a {@link DefaultMessageEngine} (see
+ * {@link DefaultMessageEngine#setMessageStatistics(MessageStatistics)}), for each {@link Counter}, overall, by flag
+ * and by round, along with a histogram of the delivery latencies.</p>
+ *
+ * <p>The counters are lock-free and do not allocate once each flag has been seen, so that they can be left enabled.
+ * They can be read from any thread while the simulation runs.</p>
+ *
+ * <p>The counts by round are only kept for the last {@link #getRoundHistory()} rounds.</p>
+ */
+public class MessageStatistics {
+    /**
+     * The events counted by the {@link MessageStatistics}.
+     */
+    public enum Counter {
+        /**
+         * A {@link Message} has been collected from a send queue, once per destination. A re-queued {@link Message}
+         * is counted again when collected again.
+         */
+        SENT,
+        /**
+         * A {@link Message} has been delivered to its destination.
+         */
+        DELIVERED,
+        /**
+         * A {@link Message} has been dropped because its arc disappeared.
+         */
+        DROPPED,
+        /**
+         * A {@link Message} has been re-queued because its arc disappeared (see {@link Message#isRetryModeEnabled()}).
+         */
+        REQUEUED
+    }
+
+    /**
+     * The default number of rounds for which the counts by round are kept; value: {@value #DEFAULT_ROUND_HISTORY}.
+     */
+    public static final int DEFAULT_ROUND_HISTORY = 64;
+
+    /**
+     * The number of buckets of the latency histogram; value: {@value #NB_LATENCY_BUCKETS}.
+     * @see #getLatencyBucket(int)
+     */
+    public static final int NB_LATENCY_BUCKETS = 32;
+
+    private static final int NB_COUNTERS = Counter.values().length;
+
+    private final LongAdder[] totalCounts = createCounts();
+    private final LongAdder[] noFlagCounts = createCounts();
+    private final ConcurrentHashMap<String, LongAdder[]> flagCounts = new ConcurrentHashMap<>();
+
+    private final int roundHistory;
+    private final AtomicIntegerArray rounds;
+    private final AtomicLongArray roundCounts;
+
+    private final AtomicLongArray latencyCounts = new AtomicLongArray(NB_LATENCY_BUCKETS);
+    private final LongAdder latencySum = new LongAdder();
+    private final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a {@link MessageStatistics} keeping the counts of the last {@link #DEFAULT_ROUND_HISTORY} rounds.
+     */
+    public MessageStatistics() {
+        this(DEFAULT_ROUND_HISTORY);
+    }
+
+    /**
+     * Creates a {@link MessageStatistics}.
+     *
+     * @param roundHistory the number of rounds for which the counts by round are kept.
+     */
+    public MessageStatistics(int roundHistory) {
+        assert (roundHistory > 0);
+        this.roundHistory = roundHistory;
+        this.rounds = new AtomicIntegerArray(roundHistory);
+        this.roundCounts = new AtomicLongArray(roundHistory * NB_COUNTERS);
+        for (int i = 0; i < roundHistory; i++)
+            rounds.set(i, -1);
+    }
+
+    private static LongAdder[] createCounts() {
+        LongAdder[] counts = new LongAdder[NB_COUNTERS];
+        for (int i = 0; i < NB_COUNTERS; i++)
+            counts[i] = new LongAdder();
+        return counts;
+    }
+
+    /**
+     * Gets the number of rounds for which the counts by round are kept.
+     *
+     * @return the number of rounds in the history.
+     */
+    public int getRoundHistory() {
+        return roundHistory;
+    }
+
+    // region recording
+
+    /**
+     * <p>Counts an event on the specified {@link Message}.</p>
+     *
+     * <p>The counts by round are meant to be updated by the thread running the rounds.</p>
+     *
+     * @param counter the {@link Counter} to increment.
+     * @param message the {@link Message}.
+     * @param round   the current round.
+     */
+    public void record(Counter counter, Message message, int round) {
+        int index = counter.ordinal();
+        totalCounts[index].increment();
+        getFlagCounts(message.getFlag())[index].increment();
+
+        int slot = Math.floorMod(round, roundHistory);
+        if (rounds.get(slot) != round) {
+            for (int i = 0; i < NB_COUNTERS; i++)
+                roundCounts.set(slot * NB_COUNTERS + i, 0);
+            rounds.set(slot, round);
+        }
+        roundCounts.incrementAndGet(slot * NB_COUNTERS + index);
+    }
+
+    /**
+     * Records the delivery latency of a {@link Message}.
+     *
+     * @param latency the number of rounds between the sending and the delivery of the {@link Message}.
+     */
+    public void recordLatency(int latency) {
+        latencyCounts.incrementAndGet(getLatencyBucket(latency));
+        latencySum.add(latency);
+        maxLatency.accumulate(latency);
+    }
+
+    private LongAdder[] getFlagCounts(String flag) {
+        if (flag == null)
+            return noFlagCounts;
+        LongAdder[] counts = flagCounts.get(flag);
+        if (counts == null)
+            counts = flagCounts.computeIfAbsent(flag, f -> createCounts());
+        return counts;
+    }
+
+    // endregion recording
+
+    // region reading
+
+    /**
+     * Gets the total count of the specified {@link Counter}.
+     *
+     * @param counter the {@link Counter}.
+     * @return the number of events counted.
+     */
+    public long getCount(Counter counter) {
+        return totalCounts[counter.ordinal()].sum();
+    }
+
+    /**
+     * Gets the count of the specified {@link Counter} for the {@link Message Messages} with the specified flag.
+     *
+     * @param counter the {@link Counter}.
+     * @param flag    the flag, possibly <code>null</code>.
+     * @return the number of events counted for this flag.
+     */
+    public long getCount(Counter counter, String flag) {
+        LongAdder[] counts = flag == null ? noFlagCounts : flagCounts.get(flag);
+        if (counts == null)
+            return 0;
+        return counts[counter.ordinal()].sum();
+    }
+
+    /**
+     * Gets the count of the specified {@link Counter} during the specified round.
+     *
+     * @param counter the {@link Counter}.
+     * @param round   the round.
+     * @return the number of events counted during this round, <code>0</code> if the round is older than the history.
+     */
+    public long getCount(Counter counter, int round) {
+        int slot = Math.floorMod(round, roundHistory);
+        long count = roundCounts.get(slot * NB_COUNTERS + counter.ordinal());
+        if (rounds.get(slot) != round)
+            return 0;
+        return count;
+    }
+
+    /**
+     * Gets the non-<code>null</code> flags seen so far.
+     *
+     * @return an unmodifiable view of the flags.
+     */
+    public Set<String> getFlags() {
+        return Collections.unmodifiableSet(flagCounts.keySet());
+    }
+
+    /**
+     * Gets the bucket of the latency histogram in which the specified latency is counted: bucket <code>i</code>
+     * counts the latencies between <code>2<sup>i-1</sup></code> and <code>2<sup>i</sup>-1</code>, bucket
+     * <code>0</code> counts the null latencies.
+     *
+     * @param latency the latency.
+     * @return the bucket of the latency.
+     */
+    public static int getLatencyBucket(int latency) {
+        if (latency <= 0)
+            return 0;
+        return Math.min(Integer.SIZE - Integer.numberOfLeadingZeros(latency), NB_LATENCY_BUCKETS - 1);
+    }
+
+    /**
+     * Gets the number of latencies counted in the specified bucket of the histogram.
+     *
+     * @param bucket the bucket.
+     * @return the number of latencies in the bucket.
+     * @see #getLatencyBucket(int)
+     */
+    public long getLatencyCount(int bucket) {
+        return latencyCounts.get(bucket);
+    }
+
+    /**
+     * Gets the number of latencies recorded.
+     *
+     * @return the number of latencies recorded.
+     */
+    public long getNbLatencies() {
+        long nbLatencies = 0;
+        for (int i = 0; i < NB_LATENCY_BUCKETS; i++)
+            nbLatencies += latencyCounts.get(i);
+        return nbLatencies;
+    }
+
+    /**
+     * Gets the mean of the latencies recorded.
+     *
+     * @return the mean latency, <code>0</code> if none has been recorded.
+     */
+    public double getMeanLatency() {
+        long nbLatencies = getNbLatencies();
+        if (nbLatencies == 0)
+            return 0;
+        return (double) latencySum.sum() / nbLatencies;
+    }
+
+    /**
+     * Gets the maximum of the latencies recorded.
+     *
+     * @return the maximum latency, <code>0</code> if none has been recorded.
+     */
+    public long getMaxLatency() {
+        return maxLatency.get();
+    }
+
+    // endregion reading
+
+    /**
+     * Resets every count and the latency histogram. Should not be called while the counts are being updated.
+     */
+    public void reset() {
+        for (int i = 0; i < NB_COUNTERS; i++) {
+            totalCounts[i].reset();
+            noFlagCounts[i].reset();
+        }
+        flagCounts.clear();
+        for (int i = 0; i < roundHistory; i++)
+            rounds.set(i, -1);
+        for (int i = 0; i < NB_LATENCY_BUCKETS; i++)
+            latencyCounts.set(i, 0);
+        latencySum.reset();
+        maxLatency.reset();
+    }
+}
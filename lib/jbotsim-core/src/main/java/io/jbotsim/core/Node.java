@@ -24,6 +24,7 @@ import io.jbotsim.core.event.ClockListener;
 import io.jbotsim.core.event.MovementListener;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 import static io.jbotsim.core.Node.PropString.*;
 
@@ -39,12 +40,21 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
     public static final double DEFAULT_DIRECTION =  -Math.PI / 2;
     List<Message> mailBox = new ArrayList<>();
     List<Message> sendQueue = new ArrayList<>();
-    HashMap<Node, Link> outLinks = new HashMap<>();
+    final ConcurrentSendQueue concurrentSendQueue = new ConcurrentSendQueue();
+    HashMap<Node, Link> outLinks = new LinkedHashMap<>();
+    HashMap<Node, Link> inLinks = new LinkedHashMap<>();
+    HashMap<Node, Link> commonLinks = new LinkedHashMap<>();
     Point coords = new Point(0, 0, 0);
     double direction = DEFAULT_DIRECTION;
     Double communicationRange = null;
     Double sensingRange = null;
     List<Node> sensedNodes = new ArrayList<>();
+    final Collection<Node> outNeighborsView = Collections.unmodifiableCollection(outLinks.keySet());
+    final Collection<Node> inNeighborsView = Collections.unmodifiableCollection(inLinks.keySet());
+    final Collection<Node> neighborsView = Collections.unmodifiableCollection(commonLinks.keySet());
+    final List<Node> sensedNodesView = Collections.unmodifiableList(sensedNodes);
+    long cell = SpatialIndex.NO_CELL;
+    long refreshedCell = SpatialIndex.NO_CELL;
     boolean isWirelessEnabled = true;
     Topology topo;
     Color color = null;
@@ -52,6 +62,24 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
     Integer ID = -1;
     int iconSize = DEFAULT_ICON_SIZE;
     private boolean die = false;
+    int wakeUpTime = 0;
+    SplittableRandom random = null;
+    Object randomSeedToken = null;
+
+    private static final ClassValue<Boolean> HAS_CLOCK_CALLBACKS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            for (String name : new String[]{"onPreClock", "onClock", "onPostClock"}) {
+                try {
+                    if (type.getMethod(name).getDeclaringClass() != Node.class)
+                        return true;
+                } catch (NoSuchMethodException e) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
 
     enum PropString {
         COLOR("color"),
@@ -375,6 +403,8 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
      */
     public void setSensingRange(double range) {
         sensingRange = range;
+        if (topo != null)
+            topo.onRangeChanged(this);
         notifyNodeMoved(); // for GUI refresh FIXME
     }
 
@@ -467,6 +497,62 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
         return topo.getTime();
     }
 
+    /**
+     * Returns the random stream of this node, derived from the seed of its topology and from its identifier.
+     * @return the random stream of this node.
+     * @see Topology#getRandom(Node)
+     */
+    public SplittableRandom getRandom() {
+        return topo.getRandom(this);
+    }
+
+    /**
+     * <p>Requests the clock callbacks of this node ({@link #onPreClock()}, {@link #onClock()} and
+     * {@link #onPostClock()}) not to be called before the specified round. This is only taken into account in
+     * discrete-event mode (see {@link Topology#enableDiscreteEventMode()}); from that round on, the node is called
+     * again on every round, until it requests another wake-up time.</p>
+     *
+     * @param time the round at which the node wakes up.
+     */
+    public void wakeUpAt(int time) {
+        wakeUpTime = time;
+        if (topo != null)
+            topo.onWakeUpRequested(this);
+    }
+
+    /**
+     * <p>Same as {@link #wakeUpAt(int)}, the wake-up time being given relatively to the current round.</p>
+     *
+     * @param nbRounds the number of rounds before the node wakes up.
+     */
+    public void wakeUpIn(int nbRounds) {
+        wakeUpAt(getTime() + nbRounds);
+    }
+
+    /**
+     * Returns the round from which the clock callbacks of this node are called, in discrete-event mode.
+     *
+     * @return the wake-up time.
+     * @see #wakeUpAt(int)
+     */
+    public int getWakeUpTime() {
+        return wakeUpTime;
+    }
+
+    /**
+     * Indicates whether the class of this node overrides at least one of {@link #onPreClock()}, {@link #onClock()}
+     * and {@link #onPostClock()}. In discrete-event mode, nodes which do not are never called on clock pulses.
+     *
+     * @return <code>true</code> if this node has clock callbacks, <code>false</code> otherwise.
+     */
+    public boolean hasClockCallbacks() {
+        return HAS_CLOCK_CALLBACKS.get(getClass());
+    }
+
+    boolean isAwake(int time) {
+        return wakeUpTime <= time && hasClockCallbacks();
+    }
+
     /**
      * Returns the current direction angle of this node (in radians).
      * @return the current direction.
@@ -558,7 +644,7 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
      * @return The requested link, or <code>null</code> if no such link is found.
      */
     public Link getCommonLinkWith(Node n) {
-        return topo.getLink(this, n, Link.Orientation.UNDIRECTED);
+        return commonLinks.get(n);
     }
 
     /**
@@ -568,7 +654,7 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
      * @return the {@link List} of inbound {@link Link}s.
      */
     public List<Link> getInLinks() {
-        return topo.getLinks(Link.Orientation.DIRECTED, this, 2);
+        return new ArrayList<>(inLinks.values());
     }
 
     /**
@@ -602,7 +688,13 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
      * @return the {@link List} of {@link Link}s
      */
     public List<Link> getLinks(Link.Orientation orientation) {
-        return topo.getLinks(orientation, this, 0);
+        if (orientation == Link.Orientation.UNDIRECTED)
+            return new ArrayList<>(commonLinks.values());
+        List<Link> links = new ArrayList<>(outLinks.values());
+        for (Link l : inLinks.values())
+            if (l.source != this)
+                links.add(l);
+        return links;
     }
 
     /**
@@ -619,7 +711,7 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
         Link.Orientation o = (directed
                 ? Link.Orientation.DIRECTED
                 : Link.Orientation.UNDIRECTED);
-        return topo.getLinks(o, this, 0);
+        return getLinks(o);
     }
 
     /**
@@ -683,7 +775,7 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
      */
     public List<Node> getSensedNodes() {
         ArrayList<Node> sensedNodes = new ArrayList<>();
-        for (Node n : topo.getNodes())
+        for (Node n : topo.getNodesSnapshot())
             if (distance(n) < sensingRange && n != this)
                 sensedNodes.add(n);
         return sensedNodes;
@@ -727,6 +819,130 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
         return new ArrayList<>(neighbors);
     }
 
+    /**
+     * <p>Applies the given action to every node serving as destination for an adjacent directed link.</p>
+     *
+     * <p>Unlike {@link #getOutNeighbors()}, this method does not copy anything. It is meant to be called from within
+     * a callback (e.g. {@link #onClock()}); the links must not be modified during the visit (which, in
+     * {@link Topology.RefreshMode#EVENTBASED} mode, includes moving the nodes).</p>
+     *
+     * @param action the action to be applied to each out-neighbor.
+     */
+    public void forEachOutNeighbor(Consumer<? super Node> action) {
+        outLinks.keySet().forEach(action);
+    }
+
+    /**
+     * <p>Applies the given action to every node serving as source for an adjacent directed link.</p>
+     *
+     * <p>This is the non-copying counterpart of {@link #getInNeighbors()}; the same restrictions as for
+     * {@link #forEachOutNeighbor(Consumer)} apply.</p>
+     *
+     * @param action the action to be applied to each in-neighbor.
+     */
+    public void forEachInNeighbor(Consumer<? super Node> action) {
+        inLinks.keySet().forEach(action);
+    }
+
+    /**
+     * <p>Applies the given action to every node located at the opposite endpoint of an adjacent undirected link.</p>
+     *
+     * <p>This is the non-copying counterpart of {@link #getNeighbors()}; the same restrictions as for
+     * {@link #forEachOutNeighbor(Consumer)} apply.</p>
+     *
+     * @param action the action to be applied to each neighbor.
+     */
+    public void forEachNeighbor(Consumer<? super Node> action) {
+        commonLinks.keySet().forEach(action);
+    }
+
+    /**
+     * <p>Applies the given action to every node currently sensed by this node, as of the last connectivity
+     * update.</p>
+     *
+     * <p>Unlike {@link #getSensedNodes()}, this method neither copies anything nor computes any distance; the same
+     * restrictions as for {@link #forEachOutNeighbor(Consumer)} apply.</p>
+     *
+     * @param action the action to be applied to each sensed node.
+     */
+    public void forEachSensedNode(Consumer<? super Node> action) {
+        sensedNodes.forEach(action);
+    }
+
+    /**
+     * <p>Applies the given action to every link for which this node is the sender.</p>
+     *
+     * <p>This is the non-copying counterpart of {@link #getOutLinks()}; the same restrictions as for
+     * {@link #forEachOutNeighbor(Consumer)} apply.</p>
+     *
+     * @param action the action to be applied to each outbound link.
+     */
+    public void forEachOutLink(Consumer<? super Link> action) {
+        outLinks.values().forEach(action);
+    }
+
+    /**
+     * <p>Applies the given action to every link for which this node is the destination.</p>
+     *
+     * <p>This is the non-copying counterpart of {@link #getInLinks()}; the same restrictions as for
+     * {@link #forEachOutNeighbor(Consumer)} apply.</p>
+     *
+     * @param action the action to be applied to each inbound link.
+     */
+    public void forEachInLink(Consumer<? super Link> action) {
+        inLinks.values().forEach(action);
+    }
+
+    /**
+     * <p>Returns a read-only view of the out-neighbors of this node.</p>
+     *
+     * <p>The view is backed by the node: it is not copied and reflects later changes. It must therefore only be
+     * used during the current callback, and must not be iterated while the links are being modified. Use
+     * {@link #getOutNeighbors()} to get a copy instead.</p>
+     *
+     * @return an unmodifiable {@link Collection} of the out-neighbors.
+     */
+    public Collection<Node> getOutNeighborsView() {
+        return outNeighborsView;
+    }
+
+    /**
+     * <p>Returns a read-only view of the in-neighbors of this node.</p>
+     *
+     * <p>The same restrictions as for {@link #getOutNeighborsView()} apply. Use {@link #getInNeighbors()} to get a
+     * copy instead.</p>
+     *
+     * @return an unmodifiable {@link Collection} of the in-neighbors.
+     */
+    public Collection<Node> getInNeighborsView() {
+        return inNeighborsView;
+    }
+
+    /**
+     * <p>Returns a read-only view of the undirected neighbors of this node.</p>
+     *
+     * <p>The same restrictions as for {@link #getOutNeighborsView()} apply. Use {@link #getNeighbors()} to get a
+     * copy instead.</p>
+     *
+     * @return an unmodifiable {@link Collection} of the neighbors.
+     */
+    public Collection<Node> getNeighborsView() {
+        return neighborsView;
+    }
+
+    /**
+     * <p>Returns a read-only view of the nodes currently sensed by this node, as of the last connectivity
+     * update.</p>
+     *
+     * <p>The same restrictions as for {@link #getOutNeighborsView()} apply. Use {@link #getSensedNodes()} to get a
+     * copy instead.</p>
+     *
+     * @return an unmodifiable {@link List} of the sensed nodes.
+     */
+    public List<Node> getSensedNodesView() {
+        return sensedNodesView;
+    }
+
     /**
      * Returns a list of messages representing the mailbox of this node.
      * The mailbox can be useful to scrutinize new messages in a non-event,
@@ -747,7 +963,9 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
      * @return the {@link List} of outgoing {@link Message}s
      */
     public List<Message> getOutbox() {
-        return new ArrayList<>(sendQueue);
+        List<Message> outbox = new ArrayList<>(sendQueue);
+        concurrentSendQueue.copyTo(outbox);
+        return outbox;
     }
 
     /**
@@ -756,12 +974,20 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
      * message is specified as an object reference, to be passed 'as is' to the
      * destination(s).
      *
+     * <p>This method may be called from any thread. Messages sent from a thread which does not take part in the
+     * current round (e.g. an executor, or any thread while the clock is between two rounds) go through a lock-free
+     * queue, which the {@link MessageEngine} drains at the beginning of the next round.</p>
+     *
      * @param destination The destination node.
      * @param message     The message to be sent.
      */
     public void send(Node destination, Message message) {
         Message m = new Message(this, destination, message);
-        sendQueue.add(m);
+        Topology tp = topo;
+        if (tp == null || tp.isRoundThread())
+            sendQueue.add(m);
+        else
+            concurrentSendQueue.push(m);
     }
 
     /**
@@ -891,6 +1117,11 @@ public class Node extends Properties implements ClockListener, Comparable<Node>
 
     protected void notifyNodeMoved() {
         onMovement();
+        if (topo != null && !(topo.isDeferringChanges && topo.defer(this::notifyMovementListeners)))
+            notifyMovementListeners();
+    }
+
+    private void notifyMovementListeners() {
         if (topo != null)
             for (MovementListener ml : new ArrayList<>(topo.movementListeners))
                 ml.onMovement(this);
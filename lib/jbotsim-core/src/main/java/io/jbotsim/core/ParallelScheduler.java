@@ -0,0 +1,159 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * <p>The {@link ParallelScheduler} is a {@link Scheduler} which runs the {@link Node Nodes}' callbacks of each phase
+ * ({@link Node#onPreClock()}, {@link Node#onClock()} and {@link Node#onPostClock()}) in parallel, using a
+ * {@link ForkJoinPool}.</p>
+ *
+ * <p>A phase only starts once the previous one is over on every {@link Node}. During a phase, the changes a
+ * {@link Node} requests on the {@link Topology} are not applied right away: they are buffered per {@link Node}, and
+ * applied on the clock thread at the end of the phase, {@link Node} after {@link Node}, in the order of
+ * {@link Topology#getNodesSnapshot()}. Repeated runs thus produce the same result, whatever the number of threads.
+ * The buffered changes are:</p>
+ * <ul>
+ *     <li>the updates of links and sensed nodes following a move, or a change of range or wireless status;</li>
+ *     <li>the notification of the {@link io.jbotsim.core.event.MovementListener MovementListeners};</li>
+ *     <li>{@link Topology#addNode(double, double, Node)}, {@link Topology#removeNode(Node)},
+ *     {@link Topology#selectNode(Node)}, {@link Topology#addLink(Link, boolean)} and
+ *     {@link Topology#removeLink(Link)}.</li>
+ * </ul>
+ *
+ * <p>{@link Node#send(Node, Message)} only appends the message to the sender's own queue, hence needs no buffering
+ * as long as a {@link Node} only sends messages on its own behalf.</p>
+ *
+ * <p>Within a phase, a {@link Node} should only modify its own state: the callbacks of distinct {@link Node Nodes}
+ * are run concurrently, and the links or sensed nodes they observe are the ones of the beginning of the phase. In
+ * {@link Topology.RefreshMode#EVENTBASED} mode, the buffered moves are evaluated once every {@link Node} has moved,
+ * so the intermediate link events may differ from the ones of the sequential {@link Scheduler}, though the resulting
+ * links are the same. In {@link Topology.RefreshMode#CLOCKBASED} mode, both schedulers produce the same events.</p>
+ */
+public class ParallelScheduler extends Scheduler {
+    /**
+     * The number of {@link Node Nodes} below which a phase is not split any further.
+     */
+    public static final int SEQUENTIAL_THRESHOLD = 64;
+
+    private final ForkJoinPool pool;
+    private final List<List<Runnable>> buffers = new ArrayList<>();
+
+    /**
+     * Creates a {@link ParallelScheduler} running in the common {@link ForkJoinPool}.
+     */
+    public ParallelScheduler() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a {@link ParallelScheduler} running in the specified {@link ForkJoinPool}.
+     *
+     * @param pool the {@link ForkJoinPool} in which the {@link Node Nodes}' callbacks are run.
+     */
+    public ParallelScheduler(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the {@link ForkJoinPool} in which the {@link Node Nodes}' callbacks are run.
+     *
+     * @return the {@link ForkJoinPool}.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Runs a phase of the round in the {@link ForkJoinPool}, then applies the changes buffered by each {@link Node},
+     * in the order of {@link Topology#getNodesSnapshot()}.
+     *
+     * @param tp the {@link Topology} on which the scheduling takes place.
+     * @param callback the callback of the phase.
+     */
+    @Override
+    protected void runPhase(Topology tp, Consumer<Node> callback) {
+        List<Node> nodes = tp.getNodesSnapshot();
+        while (buffers.size() < nodes.size())
+            buffers.add(new ArrayList<>());
+        tp.isDeferringChanges = true;
+        try {
+            PhaseTask task = new PhaseTask(tp, nodes, callback, 0, nodes.size());
+            if (nodes.size() <= SEQUENTIAL_THRESHOLD)
+                task.compute();
+            else
+                pool.invoke(task);
+        } finally {
+            tp.isDeferringChanges = false;
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            List<Runnable> buffer = buffers.get(i);
+            for (Runnable change : buffer)
+                change.run();
+            buffer.clear();
+        }
+    }
+
+    private class PhaseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Topology topology;
+        private final List<Node> nodes;
+        private final Consumer<Node> callback;
+        private final int from;
+        private final int to;
+
+        PhaseTask(Topology topology, List<Node> nodes, Consumer<Node> callback, int from, int to) {
+            this.topology = topology;
+            this.nodes = nodes;
+            this.callback = callback;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                List<Runnable> previous = topology.deferredChanges.get();
+                try {
+                    for (int i = from; i < to; i++) {
+                        List<Runnable> buffer = buffers.get(i);
+                        buffer.clear();
+                        topology.deferredChanges.set(buffer);
+                        if (isScheduled(topology, nodes.get(i)))
+                            callback.accept(nodes.get(i));
+                    }
+                } finally {
+                    topology.deferredChanges.set(previous);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PhaseTask(topology, nodes, callback, from, middle),
+                        new PhaseTask(topology, nodes, callback, middle, to));
+            }
+        }
+    }
+}
@@ -27,8 +27,21 @@ import java.util.List;
 import io.jbotsim.core.event.PropertyListener;
 
 public abstract class Properties {
-    protected HashMap<String, Object> properties = new HashMap<>();
-    List<PropertyListener> propertyListeners = new ArrayList<>();
+    protected HashMap<String, Object> properties;
+    List<PropertyListener> propertyListeners;
+
+    public Properties() {
+        this(new HashMap<>());
+    }
+
+    /**
+     * Creates a {@link Properties} object backed by the specified map, which is not copied.
+     *
+     * @param properties the map in which the properties are stored.
+     */
+    Properties(HashMap<String, Object> properties) {
+        this.properties = properties;
+    }
 
     /**
      * Registers the specified property listener to this node. The listener
@@ -37,6 +50,8 @@ public abstract class Properties {
      * @param listener The movement listener.
      */
     public void addPropertyListener(PropertyListener listener) {
+        if (propertyListeners == null)
+            propertyListeners = new ArrayList<>();
         propertyListeners.add(listener);
     }
 
@@ -46,7 +61,8 @@ public abstract class Properties {
      * @param listener The property listener.
      */
     public void removePropertyListener(PropertyListener listener) {
-        propertyListeners.remove(listener);
+        if (propertyListeners != null)
+            propertyListeners.remove(listener);
     }
 
     /**
@@ -68,8 +84,9 @@ public abstract class Properties {
      */
     public void setProperty(String key, Object value) {
         properties.put(key, value);
-        for (PropertyListener pl : new ArrayList<>(propertyListeners))
-            pl.onPropertyChanged(this, key);
+        if (propertyListeners != null)
+            for (PropertyListener pl : new ArrayList<>(propertyListeners))
+                pl.onPropertyChanged(this, key);
     }
 
     /**
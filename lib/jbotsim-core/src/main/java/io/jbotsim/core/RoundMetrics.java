@@ -0,0 +1,189 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import io.jbotsim.core.event.RoundMetricsListener;
+
+/**
+ * <p>The {@link RoundMetrics} hold the profile of a round: the time spent in each {@link Phase}, in nanoseconds, and
+ * a few counts of what happened during the round.</p>
+ *
+ * <p>They are recorded by the {@link ClockManager}, the {@link Scheduler} and the {@link Topology} when some
+ * {@link RoundMetricsListener} is registered (see {@link Topology#addRoundMetricsListener(RoundMetricsListener)}),
+ * and delivered to the listeners at the end of each round. The same instance is reused from one round to the next: a
+ * listener should copy the values it wants to keep.</p>
+ */
+public class RoundMetrics {
+    /**
+     * The phases of a round.
+     */
+    public enum Phase {
+        /**
+         * The delivery of the messages, see {@link MessageEngine#onClock()}.
+         */
+        MESSAGE_ENGINE,
+        /**
+         * The {@link Node#onPreClock()} callbacks.
+         */
+        PRE_CLOCK,
+        /**
+         * The {@link Node#onClock()} callbacks.
+         */
+        CLOCK,
+        /**
+         * The {@link Node#onPostClock()} callbacks.
+         */
+        POST_CLOCK,
+        /**
+         * The refresh of the links of the nodes touched during the round, when the {@link Topology.RefreshMode} is
+         * {@link Topology.RefreshMode#CLOCKBASED}. In the default mode, the links are refreshed as soon as a node
+         * moves, hence during the other phases.
+         */
+        LINK_REFRESH,
+        /**
+         * The removal of the nodes which died during the round, see {@link Node#die()}.
+         */
+        DYING_NODES_REMOVAL,
+        /**
+         * The {@link io.jbotsim.core.event.ClockListener ClockListeners} expiring during the round, including the
+         * bookkeeping of their periods.
+         */
+        CLOCK_LISTENERS
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long[] durations = new long[PHASES.length];
+    private int round;
+    private long roundStart;
+    private long phaseStart;
+    private long totalDuration;
+    int nbTouchedNodes;
+    int nbAddedArcs;
+    int nbRemovedArcs;
+    int nbDeliveredMessages;
+
+    void startRound(int round) {
+        this.round = round;
+        for (int i = 0; i < durations.length; i++)
+            durations[i] = 0;
+        totalDuration = 0;
+        nbTouchedNodes = 0;
+        nbAddedArcs = 0;
+        nbRemovedArcs = 0;
+        nbDeliveredMessages = 0;
+        roundStart = System.nanoTime();
+        phaseStart = roundStart;
+    }
+
+    /**
+     * Ends the specified phase: the time elapsed since the end of the previous phase is added to its duration.
+     *
+     * @param phase the phase which just ended.
+     */
+    void endPhase(Phase phase) {
+        long now = System.nanoTime();
+        durations[phase.ordinal()] += now - phaseStart;
+        phaseStart = now;
+    }
+
+    void endRound() {
+        totalDuration = System.nanoTime() - roundStart;
+    }
+
+    /**
+     * Gets the profiled round.
+     *
+     * @return the round number.
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * Gets the time spent in the specified phase.
+     *
+     * @param phase the phase.
+     * @return the duration of the phase, in nanoseconds.
+     */
+    public long getDuration(Phase phase) {
+        return durations[phase.ordinal()];
+    }
+
+    /**
+     * Gets the time spent in the whole round, including the time spent outside of the profiled phases, for instance
+     * by a custom {@link Scheduler}.
+     *
+     * @return the duration of the round, in nanoseconds.
+     */
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    /**
+     * Gets the number of times a node has been touched during the round, that is moved or given a new range, each
+     * touch requiring its links to be refreshed.
+     *
+     * @return the number of touched nodes.
+     */
+    public int getNbTouchedNodes() {
+        return nbTouchedNodes;
+    }
+
+    /**
+     * Gets the number of arcs added during the round; an undirected link counts as two arcs.
+     *
+     * @return the number of added arcs.
+     */
+    public int getNbAddedArcs() {
+        return nbAddedArcs;
+    }
+
+    /**
+     * Gets the number of arcs removed during the round; an undirected link counts as two arcs.
+     *
+     * @return the number of removed arcs.
+     */
+    public int getNbRemovedArcs() {
+        return nbRemovedArcs;
+    }
+
+    /**
+     * Gets the number of messages delivered during the round.
+     *
+     * @return the number of delivered messages.
+     */
+    public int getNbDeliveredMessages() {
+        return nbDeliveredMessages;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("round ").append(round).append(": ").append(totalDuration)
+                .append("ns");
+        for (Phase phase : PHASES)
+            builder.append(", ").append(phase).append('=').append(durations[phase.ordinal()]).append("ns");
+        return builder.append(", touched nodes=").append(nbTouchedNodes)
+                .append(", added arcs=").append(nbAddedArcs)
+                .append(", removed arcs=").append(nbRemovedArcs)
+                .append(", delivered messages=").append(nbDeliveredMessages).toString();
+    }
+}
@@ -23,6 +23,7 @@ package io.jbotsim.core;
 import io.jbotsim.core.event.ClockListener;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * <p>The {@link Scheduler}  defines JBotSim's scheduler.</p>
@@ -37,6 +38,9 @@ import java.util.List;
  *     <li>performs onClock on the {@link Topology} (via {@link Topology#onClock()}</li>
  *     <li>performs remaining listeners work (via {@link ClockListener#onClock()}</li>
  * </ol>
+ *
+ * <p>When the rounds are profiled (see {@link Topology#addRoundMetricsListener(io.jbotsim.core.event.RoundMetricsListener)}),
+ * the end of each of these steps is recorded in the {@link RoundMetrics} of the {@link Topology}.</p>
  */
 public class Scheduler {
 
@@ -47,19 +51,55 @@ public class Scheduler {
      * @param expiredListeners a list of {@link ClockListener} that are to be informed
      */
     public void onClock(Topology tp, List<ClockListener> expiredListeners) {
+        RoundMetrics metrics = tp.roundMetrics;
         // Delivers messages first
         tp.getMessageEngine().onClock();
-        // Then give the hand to the nodes
-        for (Node node : tp.getNodes())
-            node.onPreClock();
-        for (Node node : tp.getNodes())
-            node.onClock();
-        for (Node node : tp.getNodes())
-            node.onPostClock();
+        if (metrics != null)
+            metrics.endPhase(RoundMetrics.Phase.MESSAGE_ENGINE);
+        // Then give the hand to the nodes, one phase after the other
+        runPhase(tp, Node::onPreClock);
+        if (metrics != null)
+            metrics.endPhase(RoundMetrics.Phase.PRE_CLOCK);
+        runPhase(tp, Node::onClock);
+        if (metrics != null)
+            metrics.endPhase(RoundMetrics.Phase.CLOCK);
+        runPhase(tp, Node::onPostClock);
+        if (metrics != null)
+            metrics.endPhase(RoundMetrics.Phase.POST_CLOCK);
         // Then to the topology itself
         tp.onClock();
         // And finally the other listeners
         for (ClockListener cl : expiredListeners)
             cl.onClock();
+        if (metrics != null)
+            metrics.endPhase(RoundMetrics.Phase.CLOCK_LISTENERS);
+    }
+
+    /**
+     * Runs a phase of the round: calls the specified callback on each scheduled {@link Node}, in the order of
+     * {@link Topology#getNodesSnapshot()}.
+     *
+     * @param tp the {@link Topology} on which the scheduling takes place.
+     * @param callback the callback of the phase, {@link Node#onPreClock()}, {@link Node#onClock()} or
+     *                 {@link Node#onPostClock()}.
+     * @see #isScheduled(Topology, Node)
+     */
+    protected void runPhase(Topology tp, Consumer<Node> callback) {
+        for (Node node : tp.getNodesSnapshot())
+            if (isScheduled(tp, node))
+                callback.accept(node);
+    }
+
+    /**
+     * Indicates whether the clock callbacks of the specified {@link Node} must be called during the current round.
+     * This is always the case, unless the discrete-event mode is enabled and the {@link Node} is not awake.
+     *
+     * @param tp the {@link Topology} on which the scheduling takes place.
+     * @param node the {@link Node} to be tested.
+     * @return <code>true</code> if the {@link Node} must be called, <code>false</code> otherwise.
+     * @see Topology#enableDiscreteEventMode()
+     */
+    protected boolean isScheduled(Topology tp, Node node) {
+        return !tp.isDiscreteEventModeEnabled() || node.isAwake(tp.getTime());
     }
 }
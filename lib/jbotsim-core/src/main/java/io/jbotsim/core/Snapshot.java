@@ -0,0 +1,102 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+/**
+ * <p>The {@link Snapshot} provides an unmodifiable copy of a {@link Collection}, which is only rebuilt when the
+ * {@link Collection} has been modified since the last copy.</p>
+ *
+ * <p>The owner of the {@link Collection} must call {@link #invalidate()} after each modification. A copy which is
+ * built while the {@link Collection} is being modified is labelled with the version it started from, and is thus
+ * rebuilt on the next call to {@link #get()}.</p>
+ *
+ * <p>The copies may be made from another thread than the one modifying the {@link Collection}, such as the UI
+ * thread: a copy which fails with a {@link ConcurrentModificationException} is started over.</p>
+ *
+ * @param <T> the type of the elements.
+ */
+class Snapshot<T> {
+    private final Collection<T> source;
+    private volatile int version = 0;
+    private volatile Copy<T> copy = null;
+
+    Snapshot(Collection<T> source) {
+        this.source = source;
+    }
+
+    /**
+     * Indicates that the underlying {@link Collection} has been modified.
+     */
+    void invalidate() {
+        version++;
+    }
+
+    /**
+     * Returns an unmodifiable copy of the underlying {@link Collection}, as of the last call to
+     * {@link #invalidate()}.
+     *
+     * @return the current copy.
+     */
+    List<T> get() {
+        int currentVersion = version;
+        Copy<T> current = copy;
+        if (current == null || current.version != currentVersion) {
+            current = new Copy<>(currentVersion, Collections.unmodifiableList(copy()));
+            copy = current;
+        }
+        return current.elements;
+    }
+
+    /**
+     * Returns a new modifiable copy of the underlying {@link Collection}.
+     *
+     * @return the copy.
+     */
+    List<T> copy() {
+        while (true) {
+            // iterates rather than using toArray(), which may overflow its array if another thread adds elements
+            List<T> elements = new ArrayList<>(source.size());
+            try {
+                for (T element : source)
+                    elements.add(element);
+                return elements;
+            } catch (ConcurrentModificationException e) {
+                // the source has been modified by another thread during the copy
+            }
+        }
+    }
+
+    private static class Copy<T> {
+        final int version;
+        final List<T> elements;
+
+        Copy(int version, List<T> elements) {
+            this.version = version;
+            this.elements = elements;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import java.util.*;
+
+/**
+ * <p>The {@link SpatialIndex} is a uniform grid used by the {@link Topology} to find the {@link Node Nodes} which
+ * are close to a given {@link Node}, without scanning the whole set of nodes.</p>
+ *
+ * <p>The grid only considers the x and y coordinates. Its cells are at least as large as the largest communication
+ * or sensing range in the topology, so that two nodes within range of each other always lie in adjacent cells.</p>
+ *
+ * <p>Each {@link Node} remembers two cells: the one matching its current location, and the one it occupied when its
+ * links and sensed nodes were last refreshed. Looking around both of them is enough to find every node whose
+ * relation with the refreshed node may have changed.</p>
+ */
+class SpatialIndex {
+    static final long NO_CELL = Long.MIN_VALUE;
+    static final double MIN_CELL_SIZE = 1;
+    static final double GROWTH_FACTOR = 1.25;
+
+    private final HashMap<Long, List<Node>> cells = new HashMap<>();
+    private double cellSize = 0;
+    private boolean bounded = true;
+
+    /**
+     * Indicates whether the index can be used, i.e. whether every registered range is finite.
+     * @return <code>true</code> if the index can be queried, <code>false</code> otherwise.
+     */
+    boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * Makes sure that the cells are large enough for the specified range, rebuilding the grid if needed.
+     *
+     * @param range the communication or sensing range of a node.
+     * @param nodes all the nodes of the topology.
+     * @return <code>true</code> if the grid has been rebuilt, <code>false</code> otherwise.
+     */
+    boolean ensureRange(double range, Collection<Node> nodes) {
+        if (!bounded)
+            return false;
+        if (Double.isNaN(range) || Double.isInfinite(range)) {
+            bounded = false;
+            cells.clear();
+            return true;
+        }
+        if (range < cellSize)
+            return false;
+        cellSize = Math.max(range * GROWTH_FACTOR, MIN_CELL_SIZE);
+        rebuild(nodes);
+        return true;
+    }
+
+    /**
+     * Registers all the specified nodes from scratch, considering them as refreshed at their current location.
+     *
+     * @param nodes all the nodes of the topology.
+     */
+    void rebuild(Collection<Node> nodes) {
+        cells.clear();
+        for (Node n : nodes) {
+            n.cell = NO_CELL;
+            move(n);
+            markRefreshed(n);
+        }
+    }
+
+    /**
+     * Forgets every node and every range.
+     */
+    void clear() {
+        cells.clear();
+        cellSize = 0;
+        bounded = true;
+    }
+
+    /**
+     * Registers the node in the cell matching its current location (or moves it there).
+     *
+     * @param n the node.
+     */
+    void move(Node n) {
+        if (!bounded)
+            return;
+        long key = keyOf(n.getX(), n.getY());
+        if (key == n.cell)
+            return;
+        if (n.cell != NO_CELL)
+            removeFromCell(n, n.cell);
+        cells.computeIfAbsent(key, k -> new ArrayList<>()).add(n);
+        n.cell = key;
+        if (n.refreshedCell == NO_CELL)
+            n.refreshedCell = key;
+    }
+
+    /**
+     * Unregisters the node.
+     *
+     * @param n the node.
+     */
+    void remove(Node n) {
+        if (n.cell != NO_CELL)
+            removeFromCell(n, n.cell);
+        n.cell = NO_CELL;
+        n.refreshedCell = NO_CELL;
+    }
+
+    /**
+     * Records that the links and sensed nodes of the node match its current location.
+     *
+     * @param n the node.
+     */
+    void markRefreshed(Node n) {
+        n.refreshedCell = n.cell;
+    }
+
+    /**
+     * Adds to the provided collection the nodes registered around the current cell of the node, and around the cell
+     * it occupied when last refreshed. The node itself may be part of the result.
+     *
+     * @param n the node.
+     * @param into the collection to be filled.
+     */
+    void collectNeighborhood(Node n, Collection<Node> into) {
+        collectAround(n.cell, into);
+        if (n.refreshedCell != n.cell)
+            collectAround(n.refreshedCell, into);
+    }
+
+    private void collectAround(long key, Collection<Node> into) {
+        if (key == NO_CELL)
+            return;
+        int cx = (int) (key >> 32);
+        int cy = (int) key;
+        for (int dx = -1; dx <= 1; dx++)
+            for (int dy = -1; dy <= 1; dy++) {
+                List<Node> cell = cells.get(pack(cx + dx, cy + dy));
+                if (cell != null)
+                    into.addAll(cell);
+            }
+    }
+
+    private void removeFromCell(Node n, long key) {
+        List<Node> cell = cells.get(key);
+        if (cell == null)
+            return;
+        cell.remove(n);
+        if (cell.isEmpty())
+            cells.remove(key);
+    }
+
+    private long keyOf(double x, double y) {
+        return pack(toCell(x), toCell(y));
+    }
+
+    private int toCell(double coordinate) {
+        double c = Math.floor(coordinate / cellSize);
+        return (int) Math.max(-Integer.MAX_VALUE, Math.min(Integer.MAX_VALUE - 1, c));
+    }
+
+    private static long pack(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
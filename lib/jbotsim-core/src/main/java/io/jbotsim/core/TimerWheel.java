@@ -0,0 +1,211 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core;
+
+import io.jbotsim.core.event.ClockListener;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * <p>The {@link TimerWheel} schedules the periodic {@link ClockListener ClockListeners} of the {@link ClockManager}.</p>
+ *
+ * <p>The listeners which are due within the next {@link #WHEEL_SIZE} ticks are stored in the bucket of their due
+ * tick, the other ones in an overflow list, which is only scanned once every {@link #WHEEL_SIZE} ticks. Each tick
+ * hence only visits the listeners which are due, without any allocation.</p>
+ *
+ * <p>Each bucket is a FIFO: the listeners due on a same tick are returned in the order they have been scheduled
+ * for this tick. This order only depends on the sequence of registrations and on the periods, so that repeated runs
+ * fire the listeners in the same order.</p>
+ */
+class TimerWheel {
+    static final int WHEEL_SIZE = 256;
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private final Entry[] heads = new Entry[WHEEL_SIZE];
+    private final Entry[] tails = new Entry[WHEEL_SIZE];
+    private Entry overflowHead;
+    private Entry overflowTail;
+    private final HashMap<ClockListener, Entry> entries = new HashMap<>();
+    private long tick = 0;
+    private long nextCascade = WHEEL_SIZE;
+
+    /**
+     * Schedules the specified listener every <code>period</code> ticks, starting <code>period</code> ticks from now.
+     * If the listener was already scheduled, its period and countdown are reset. Listeners with a period lower than
+     * <code>1</code> are registered, but never returned.
+     *
+     * @param listener the listener.
+     * @param period the period of the listener, in ticks.
+     */
+    void add(ClockListener listener, int period) {
+        Entry entry = entries.get(listener);
+        if (entry == null) {
+            entry = new Entry(listener);
+            entries.put(listener, entry);
+        } else
+            unlink(entry);
+        entry.period = period;
+        if (period > 0) {
+            entry.due = tick + period;
+            schedule(entry);
+        }
+    }
+
+    /**
+     * Unschedules the specified listener.
+     *
+     * @param listener the listener.
+     */
+    void remove(ClockListener listener) {
+        Entry entry = entries.remove(listener);
+        if (entry != null)
+            unlink(entry);
+    }
+
+    /**
+     * Moves forward by one tick, and appends the listeners which are due to the provided list.
+     *
+     * @param expiredListeners the list to which the due listeners are appended.
+     */
+    void tick(List<ClockListener> expiredListeners) {
+        advance(1);
+        int index = (int) (tick & MASK);
+        Entry entry = heads[index];
+        heads[index] = null;
+        tails[index] = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.previous = null;
+            entry.next = null;
+            entry.isLinked = false;
+            expiredListeners.add(entry.listener);
+            entry.due = tick + entry.period;
+            schedule(entry);
+            entry = next;
+        }
+    }
+
+    /**
+     * Moves forward by the specified number of ticks, none of which may be the due tick of a listener.
+     *
+     * @param nbTicks the number of ticks.
+     */
+    void skip(int nbTicks) {
+        advance(nbTicks);
+    }
+
+    /**
+     * Returns the number of ticks until the next due listener.
+     *
+     * @return the number of ticks until the next due listener, {@link Long#MAX_VALUE} if no listener is scheduled.
+     */
+    long getTicksToNextExpiration() {
+        long next = Long.MAX_VALUE;
+        for (int i = 1; i < WHEEL_SIZE; i++)
+            if (heads[(int) ((tick + i) & MASK)] != null) {
+                next = i;
+                break;
+            }
+        // The overflow list is only cascaded on block boundaries: it may hold a listener due before those of the wheel.
+        for (Entry entry = overflowHead; entry != null; entry = entry.next)
+            next = Math.min(next, entry.due - tick);
+        return next;
+    }
+
+    private void advance(int nbTicks) {
+        tick += nbTicks;
+        if (tick >= nextCascade) {
+            nextCascade = (tick & ~MASK) + WHEEL_SIZE;
+            cascade();
+        }
+    }
+
+    private void cascade() {
+        Entry entry = overflowHead;
+        while (entry != null) {
+            Entry next = entry.next;
+            if (entry.due - tick < WHEEL_SIZE) {
+                unlink(entry);
+                schedule(entry);
+            }
+            entry = next;
+        }
+    }
+
+    private void schedule(Entry entry) {
+        if (entry.due - tick < WHEEL_SIZE) {
+            int index = (int) (entry.due & MASK);
+            entry.bucket = index;
+            entry.previous = tails[index];
+            if (tails[index] == null)
+                heads[index] = entry;
+            else
+                tails[index].next = entry;
+            tails[index] = entry;
+        } else {
+            entry.bucket = -1;
+            entry.previous = overflowTail;
+            if (overflowTail == null)
+                overflowHead = entry;
+            else
+                overflowTail.next = entry;
+            overflowTail = entry;
+        }
+        entry.isLinked = true;
+    }
+
+    private void unlink(Entry entry) {
+        if (!entry.isLinked)
+            return;
+        if (entry.previous == null) {
+            if (entry.bucket < 0)
+                overflowHead = entry.next;
+            else
+                heads[entry.bucket] = entry.next;
+        } else
+            entry.previous.next = entry.next;
+        if (entry.next == null) {
+            if (entry.bucket < 0)
+                overflowTail = entry.previous;
+            else
+                tails[entry.bucket] = entry.previous;
+        } else
+            entry.next.previous = entry.previous;
+        entry.previous = null;
+        entry.next = null;
+        entry.isLinked = false;
+    }
+
+    private static class Entry {
+        final ClockListener listener;
+        int period;
+        long due;
+        int bucket;
+        boolean isLinked = false;
+        Entry previous;
+        Entry next;
+
+        Entry(ClockListener listener) {
+            this.listener = listener;
+        }
+    }
+}
@@ -29,6 +29,9 @@ import io.jbotsim.io.TopologySerializer;
 import io.jbotsim.io.format.plain.PlainTopologySerializer;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 /**
  * <p>The {@link Topology} object is the main entry point of JBotSim.</p>
@@ -56,11 +59,16 @@ public class Topology extends Properties implements ClockListener {
     List<MessageListener> messageListeners = new ArrayList<>();
     List<SelectionListener> selectionListeners = new ArrayList<>();
     List<StartListener> startListeners = new ArrayList<>();
+    List<RoundMetricsListener> roundMetricsListeners = new ArrayList<>();
+    RoundMetrics roundMetrics = null;
     MessageEngine messageEngine = null;
     Scheduler scheduler;
     List<Node> nodes = new ArrayList<>();
-    List<Link> arcs = new ArrayList<>();
-    List<Link> edges = new ArrayList<>();
+    ArcSet arcs = new ArcSet();
+    Set<Link> edges = new LinkedHashSet<>();
+    Snapshot<Node> nodesSnapshot = new Snapshot<>(nodes);
+    Snapshot<Link> arcsSnapshot = new Snapshot<>(arcs);
+    Snapshot<Link> edgesSnapshot = new Snapshot<>(edges);
     HashMap<String, Class<? extends Node>> nodeModels = new HashMap<String, Class<? extends Node>>();
     boolean isWirelessEnabled = true;
     double communicationRange = DEFAULT_COMMUNICATION_RANGE;
@@ -69,10 +77,24 @@ public class Topology extends Properties implements ClockListener {
     int height;
     LinkResolver linkResolver = new LinkResolver();
     Node selectedNode = null;
-    ArrayList<Node> toBeUpdated = new ArrayList<>();
+    LinkedHashSet<Node> toBeUpdated = new LinkedHashSet<>();
+    ForkJoinPool refreshPool = null;
+    SpatialIndex spatialIndex = new SpatialIndex();
+    boolean isSpatialIndexEnabled = true;
+    final ThreadLocal<List<Runnable>> deferredChanges = new ThreadLocal<>();
+    boolean isDeferringChanges = false;
+    volatile Thread roundThread = null;
+    boolean isDiscreteEventModeEnabled = false;
+    PriorityQueue<WakeUp> wakeUps = new PriorityQueue<>();
+    private boolean fullRefreshPending = false;
+    private boolean hasUnboundedLinks = false;
     private boolean step = false;
     private boolean isStarted = false;
     private int nextID = 0;
+    private long seed;
+    private SplittableRandom random;
+    private Object seedToken;
+    private final ConcurrentHashMap<String, SplittableRandom> randomStreams = new ConcurrentHashMap<>();
     private FileManager fileManager = new FileManager();
     private TopologySerializer topologySerializer = new PlainTopologySerializer();
 
@@ -95,6 +117,7 @@ public class Topology extends Properties implements ClockListener {
      * @param height the {@link Topology}'s height, as an integer.
      */
     public Topology(int width, int height) {
+        setSeed(new SplittableRandom().nextLong());
         setMessageEngine(new DefaultMessageEngine(this));
         setScheduler(new Scheduler());
         setDimensions(width, height);
@@ -182,6 +205,84 @@ public class Topology extends Properties implements ClockListener {
      */
     public void setRefreshMode(RefreshMode refreshMode) {
         this.refreshMode = refreshMode;
+        if (refreshMode == RefreshMode.EVENTBASED)
+            refreshTouchedNodes();
+    }
+
+    /**
+     * <p>Enables the parallel computation of links and sensed nodes in {@link RefreshMode#CLOCKBASED} mode, using
+     * the common {@link ForkJoinPool}.</p>
+     *
+     * <p>The status of each pair of nodes to be checked is then computed in parallel, whereas the resulting links
+     * and sensing events are still applied (and notified) on the clock thread, in a fixed order. The current
+     * {@link LinkResolver} must thus support concurrent calls to {@link LinkResolver#isHeardBy(Node, Node)}.</p>
+     *
+     * @see #enableParallelRefresh(ForkJoinPool)
+     */
+    public void enableParallelRefresh() {
+        enableParallelRefresh(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Enables the parallel computation of links and sensed nodes in {@link RefreshMode#CLOCKBASED} mode, using the
+     * specified {@link ForkJoinPool}.
+     *
+     * @param pool the {@link ForkJoinPool} in which the computation takes place.
+     * @see #enableParallelRefresh()
+     */
+    public void enableParallelRefresh(ForkJoinPool pool) {
+        refreshPool = pool;
+    }
+
+    /**
+     * Disables the parallel computation of links and sensed nodes (default behavior).
+     */
+    public void disableParallelRefresh() {
+        refreshPool = null;
+    }
+
+    /**
+     * Indicates whether links and sensed nodes are computed in parallel in {@link RefreshMode#CLOCKBASED} mode.
+     * @return <code>true</code> if the parallel refresh is enabled, <code>false</code> otherwise.
+     */
+    public boolean isParallelRefreshEnabled() {
+        return refreshPool != null;
+    }
+
+    /**
+     * <p>Enables the discrete-event mode of the clock.</p>
+     *
+     * <p>In this mode, each clock pulse jumps straight to the next round during which something happens, instead of
+     * running the idle rounds in between. A round is considered as idle when:</p>
+     * <ul>
+     *     <li>no {@link Node} is awake, i.e. every {@link Node} either has no clock callbacks (see
+     *     {@link Node#hasClockCallbacks()}) or waits for a later wake-up time (see {@link Node#wakeUpAt(int)});</li>
+     *     <li>the {@link MessageEngine} has nothing to do (see {@link MessageEngine#getNextEventTime(int)});</li>
+     *     <li>no {@link ClockListener} expires;</li>
+     *     <li>no {@link Node} is waiting for a {@link RefreshMode#CLOCKBASED} refresh.</li>
+     * </ul>
+     *
+     * <p>Besides, only awake {@link Node Nodes} are called on clock pulses.</p>
+     */
+    public void enableDiscreteEventMode() {
+        isDiscreteEventModeEnabled = true;
+    }
+
+    /**
+     * Disables the discrete-event mode of the clock: every round is run and every {@link Node} is called.
+     * @see #enableDiscreteEventMode()
+     */
+    public void disableDiscreteEventMode() {
+        isDiscreteEventModeEnabled = false;
+    }
+
+    /**
+     * Indicates whether the discrete-event mode of the clock is enabled.
+     * @return <code>true</code> if the discrete-event mode is enabled, <code>false</code> otherwise.
+     * @see #enableDiscreteEventMode()
+     */
+    public boolean isDiscreteEventModeEnabled() {
+        return isDiscreteEventModeEnabled;
     }
 
     /**
@@ -192,6 +293,43 @@ public class Topology extends Properties implements ClockListener {
         return refreshMode;
     }
 
+    /**
+     * <p>Enables the spatial index (default behavior).</p>
+     *
+     * <p>When enabled, the links and sensed nodes of a {@link Node} are only updated against the nodes located
+     * nearby, instead of against every node of the topology. The resulting links and sensing events are the same.
+     * The index is only used when the {@link LinkResolver} is bounded by the communication range (see
+     * {@link LinkResolver#isBoundedByCommunicationRange()}) and when all ranges are finite; otherwise, every node is
+     * checked.</p>
+     */
+    public void enableSpatialIndex() {
+        if (isSpatialIndexEnabled)
+            return;
+        isSpatialIndexEnabled = true;
+        for (Node node : nodes)
+            spatialIndex.ensureRange(getLargestRange(node), nodes);
+        fullRefreshPending = true;
+    }
+
+    /**
+     * Disables the spatial index. The links and sensed nodes of a {@link Node} will then be updated against every
+     * node of the topology.
+     * @see #enableSpatialIndex()
+     */
+    public void disableSpatialIndex() {
+        isSpatialIndexEnabled = false;
+        spatialIndex.clear();
+    }
+
+    /**
+     * Indicates whether the spatial index is enabled.
+     * @return <code>true</code> if the spatial index is enabled, <code>false</code> otherwise.
+     * @see #enableSpatialIndex()
+     */
+    public boolean isSpatialIndexEnabled() {
+        return isSpatialIndexEnabled;
+    }
+
     /**
      * Enables this node's wireless capabilities.
      */
@@ -281,11 +419,15 @@ public class Topology extends Properties implements ClockListener {
     }
 
     /**
-     * Sets the message engine of this topology.
+     * Sets the message engine of this topology. The previous one is notified through
+     * {@link MessageEngine#onReplaced()}.
      * @param messageEngine the new {@link MessageEngine}.
      */
     public void setMessageEngine(MessageEngine messageEngine) {
+        MessageEngine previous = this.messageEngine;
         this.messageEngine = messageEngine;
+        if (previous != null && previous != messageEngine)
+            previous.onReplaced();
     }
 
     /**
@@ -433,14 +575,20 @@ public class Topology extends Properties implements ClockListener {
         while (!nodes.isEmpty())
             removeNode(nodes.get(nodes.size() - 1));
         nextID = 0;
+        spatialIndex.clear();
+        hasUnboundedLinks = false;
     }
 
     /**
      * Removes all the links of this topology.
      */
     public void clearLinks() {
-        while (!edges.isEmpty())
-            removeLink(edges.get(edges.size() - 1));
+        while (!edges.isEmpty()) {
+            List<Link> remaining = new ArrayList<>(edges);
+            for (int i = remaining.size() - 1; i >= 0; i--)
+                if (edges.contains(remaining.get(i)))
+                    removeLink(remaining.get(i));
+        }
     }
 
     /**
@@ -461,6 +609,51 @@ public class Topology extends Properties implements ClockListener {
             start();
     }
 
+    /**
+     * <p>Runs the specified number of rounds synchronously, on the calling thread, as fast as possible.</p>
+     *
+     * <p>No {@link Clock} is involved: there is no locking, no thread handoff and no delay between rounds. If the
+     * topology has not been started yet, the nodes are first initialized as by {@link #start()}, but no clock is
+     * started. This method is meant for headless runs and must not be called while a clock is running.</p>
+     *
+     * @param nbRounds the number of rounds to be run.
+     * @throws IllegalStateException if the clock of this topology is running.
+     */
+    public void runRounds(int nbRounds) {
+        prepareSynchronousRun();
+        for (int i = 0; i < nbRounds; i++)
+            clockManager.onClock();
+    }
+
+    /**
+     * <p>Runs rounds synchronously, on the calling thread, until the specified condition holds.</p>
+     *
+     * <p>The condition is checked before each round, hence no round is run if it already holds. The same remarks as
+     * for {@link #runRounds(int)} apply.</p>
+     *
+     * @param condition the condition on this {@link Topology} which ends the run.
+     * @return the number of rounds which have been run.
+     * @throws IllegalStateException if the clock of this topology is running.
+     */
+    public int runUntil(Predicate<Topology> condition) {
+        prepareSynchronousRun();
+        int nbRounds = 0;
+        while (!condition.test(this)) {
+            clockManager.onClock();
+            nbRounds++;
+        }
+        return nbRounds;
+    }
+
+    private void prepareSynchronousRun() {
+        if (isRunning())
+            throw new IllegalStateException("Rounds cannot be run synchronously while the clock is running.");
+        if (!isStarted) {
+            isStarted = true;
+            restart();
+        }
+    }
+
     /**
      * Adds the specified node to this topology. The location of the node
      * in the topology will be its current inherent location (or <code>(0,0)</code>
@@ -490,11 +683,13 @@ public class Topology extends Properties implements ClockListener {
      * @param n The node to be added.
      */
     public void addNode(double x, double y, Node n) {
+        if (isDeferringChanges && deferAddition(x, y, n))
+            return;
         pause();
         if (x == -1)
-            x = Math.random() * width;
+            x = random.nextDouble() * width;
         if (y == -1)
-            y = Math.random() * height;
+            y = random.nextDouble() * height;
         if (n.getX() == 0 && n.getY() == 0)
             n.setLocation(x, y);
 
@@ -507,7 +702,9 @@ public class Topology extends Properties implements ClockListener {
         if (n.getID() == -1)
             n.setID(nextID++);
         nodes.add(n);
+        nodesSnapshot.invalidate();
         n.topo = this;
+        onWakeUpRequested(n);
         notifyNodeAdded(n);
         if (isStarted)
             n.onStart();
@@ -522,12 +719,17 @@ public class Topology extends Properties implements ClockListener {
      * @param n The node to be removed.
      */
     public void removeNode(Node n) {
+        if (isDeferringChanges && defer(() -> removeNode(n)))
+            return;
         pause();
         n.onStop();
         for (Link l : n.getLinks(Orientation.DIRECTED))
             removeLink(l);
         notifyNodeRemoved(n);
         nodes.remove(n);
+        nodesSnapshot.invalidate();
+        spatialIndex.remove(n);
+        toBeUpdated.remove(n);
         for (Node n2 : nodes) {
             if (n2.sensedNodes.contains(n)) {
                 n2.sensedNodes.remove(n);
@@ -544,6 +746,8 @@ public class Topology extends Properties implements ClockListener {
      * @param n The {@link Node} to be selected.
      */
     public void selectNode(Node n) {
+        if (isDeferringChanges && defer(() -> selectNode(n)))
+            return;
         selectedNode = n;
         n.onSelection();
         notifyNodeSelected(n);
@@ -570,12 +774,16 @@ public class Topology extends Properties implements ClockListener {
      * @param silent <code>true</code> to disable notifications of this adding.
      */
     public void addLink(Link l, boolean silent) {
+        if (isDeferringChanges && defer(() -> addLink(l, silent)))
+            return;
         if (l.orientation == Orientation.DIRECTED) {
             arcs.add(l);
+            arcsSnapshot.invalidate();
             l.source.outLinks.put(l.destination, l);
+            l.destination.inLinks.put(l.source, l);
             if (l.destination.outLinks.containsKey(l.source)) {
                 Link edge = new Link(l.source, l.destination, Orientation.UNDIRECTED, l.mode);
-                edges.add(edge);
+                addEdge(edge);
                 if (!silent)
                     notifyLinkAdded(edge);
             }
@@ -585,7 +793,9 @@ public class Topology extends Properties implements ClockListener {
             if (arc1 == null) {
                 arc1 = new Link(l.source, l.destination, Orientation.DIRECTED);
                 arcs.add(arc1);
+                arcsSnapshot.invalidate();
                 arc1.source.outLinks.put(arc1.destination, arc1);
+                arc1.destination.inLinks.put(arc1.source, arc1);
                 if (!silent)
                     notifyLinkAdded(arc1);
             } else {
@@ -594,13 +804,18 @@ public class Topology extends Properties implements ClockListener {
             if (arc2 == null) {
                 arc2 = new Link(l.destination, l.source, Orientation.DIRECTED);
                 arcs.add(arc2);
+                arcsSnapshot.invalidate();
                 arc2.source.outLinks.put(arc2.destination, arc2);
+                arc2.destination.inLinks.put(arc2.source, arc2);
                 if (!silent)
                     notifyLinkAdded(arc2);
             } else {
                 arc2.mode = l.mode;
             }
-            edges.add(l);
+            Link previous = l.source.commonLinks.get(l.destination);
+            if (previous != null)
+                removeEdge(previous);
+            addEdge(l);
         }
         if (!silent)
             notifyLinkAdded(l);
@@ -614,12 +829,16 @@ public class Topology extends Properties implements ClockListener {
      * @param l The link to be removed.
      */
     public void removeLink(Link l) {
+        if (isDeferringChanges && defer(() -> removeLink(l)))
+            return;
         if (l.orientation == Orientation.DIRECTED) {
-            arcs.remove(l);
+            arcs.removeAll(l);
+            arcsSnapshot.invalidate();
             l.source.outLinks.remove(l.destination);
+            l.destination.inLinks.remove(l.source);
             Link edge = getLink(l.source, l.destination, Orientation.UNDIRECTED);
             if (edge != null) {
-                edges.remove(edge);
+                removeEdge(edge);
                 notifyLinkRemoved(edge);
             }
         } else {
@@ -627,15 +846,32 @@ public class Topology extends Properties implements ClockListener {
             Link arc2 = getLink(l.destination, l.source, Orientation.DIRECTED);
             arcs.remove(arc1);
             arc1.source.outLinks.remove(arc1.destination);
+            arc1.destination.inLinks.remove(arc1.source);
             notifyLinkRemoved(arc1);
             arcs.remove(arc2);
+            arcsSnapshot.invalidate();
             arc2.source.outLinks.remove(arc2.destination);
+            arc2.destination.inLinks.remove(arc2.source);
             notifyLinkRemoved(arc2);
-            edges.remove(l);
+            removeEdge(l);
         }
         notifyLinkRemoved(l);
     }
 
+    private void addEdge(Link edge) {
+        edges.add(edge);
+        edgesSnapshot.invalidate();
+        edge.source.commonLinks.put(edge.destination, edge);
+        edge.destination.commonLinks.put(edge.source, edge);
+    }
+
+    private void removeEdge(Link edge) {
+        edges.remove(edge);
+        edgesSnapshot.invalidate();
+        edge.source.commonLinks.remove(edge.destination);
+        edge.destination.commonLinks.remove(edge.source);
+    }
+
     /**
      * Returns true if this topology has at least one directed link.
      * @return <code>true</code> if the {@link Topology} has at least one directed link, <code>false</code> otherwise.
@@ -663,6 +899,19 @@ public class Topology extends Properties implements ClockListener {
         return new ArrayList<>(nodes);
     }
 
+    /**
+     * <p>Returns an unmodifiable snapshot of the nodes in this topology.</p>
+     *
+     * <p>Unlike {@link #getNodes()}, no copy is made as long as no node is added or removed: the same snapshot is
+     * returned until then. The snapshot is not affected by later changes, hence it can be iterated while nodes are
+     * being added or removed.</p>
+     *
+     * @return an unmodifiable {@link List} of {@link Node}s.
+     */
+    public List<Node> getNodesSnapshot() {
+        return nodesSnapshot.get();
+    }
+
     /**
      * Returns the first node found with this ID.
      * @param id an integer identifying the {@link Node}.
@@ -676,13 +925,16 @@ public class Topology extends Properties implements ClockListener {
     }
 
     /**
-     * Shuffles the IDs of the nodes in this topology.
+     * Shuffles the IDs of the nodes in this topology, drawing from the random stream
+     * <code>"shuffleNodeIds"</code> of this topology.
+     *
+     * @see #getRandom(String)
      */
     public void shuffleNodeIds() {
         List<Integer> Ids = new ArrayList<>();
         for (Node node : nodes)
             Ids.add(node.getID());
-        Collections.shuffle(Ids);
+        Collections.shuffle(Ids, new Random(getRandom("shuffleNodeIds").nextLong()));
         for (int i = 0; i < nodes.size(); i++)
             nodes.get(i).setID(Ids.get(i));
     }
@@ -727,7 +979,30 @@ public class Topology extends Properties implements ClockListener {
      * @return the {@link List} of {@link Link}s.
      */
     public List<Link> getLinks(Link.Orientation orientation) {
-        return new ArrayList<>(((orientation == Orientation.DIRECTED) ? arcs : edges));
+        return (orientation == Orientation.DIRECTED) ? arcsSnapshot.copy() : edgesSnapshot.copy();
+    }
+
+    /**
+     * <p>Returns an unmodifiable snapshot of the links in this topology with respect to its orientation.</p>
+     *
+     * @return an unmodifiable {@link List} of {@link Link}s.
+     * @see #getLinksSnapshot(Link.Orientation)
+     */
+    public List<Link> getLinksSnapshot() {
+        return getLinksSnapshot(orientation);
+    }
+
+    /**
+     * <p>Returns an unmodifiable snapshot of the links with the specified orientation.</p>
+     *
+     * <p>Unlike {@link #getLinks(Link.Orientation)}, no copy is made as long as no such link is added or removed:
+     * the same snapshot is returned until then. The snapshot is not affected by later changes.</p>
+     *
+     * @param orientation the kind of links to return.
+     * @return an unmodifiable {@link List} of {@link Link}s.
+     */
+    public List<Link> getLinksSnapshot(Link.Orientation orientation) {
+        return (orientation == Orientation.DIRECTED) ? arcsSnapshot.get() : edgesSnapshot.get();
     }
 
     /**
@@ -745,27 +1020,6 @@ public class Topology extends Properties implements ClockListener {
         return getLinks(directed ? Orientation.DIRECTED : Orientation.UNDIRECTED);
     }
 
-    List<Link> getLinks(Orientation orientation, Node n, int pos) {
-        List<Link> result = new ArrayList<>();
-        List<Link> allLinks = getLinks(orientation);
-        for (Link l : allLinks)
-            switch (pos) {
-                case 0:
-                    if (l.source == n || l.destination == n)
-                        result.add(l);
-                    break;
-                case 1:
-                    if (l.source == n)
-                        result.add(l);
-                    break;
-                case 2:
-                    if (l.destination == n)
-                        result.add(l);
-                    break;
-            }
-        return result;
-    }
-
     /**
      * Returns the link shared by the specified nodes, if any. The link
      * orientation is selected according to the orientation of the topology.
@@ -794,9 +1048,7 @@ public class Topology extends Properties implements ClockListener {
         if (orientation == Orientation.DIRECTED) {
             return from.outLinks.get(to);
         } else {
-            Link l = new Link(from, to, Orientation.UNDIRECTED);
-            int pos = edges.indexOf(l);
-            return (pos != -1) ? edges.get(pos) : null;
+            return from.commonLinks.get(to);
         }
     }
 
@@ -976,6 +1228,31 @@ public class Topology extends Properties implements ClockListener {
         messageListeners.remove(listener);
     }
 
+    /**
+     * <p>Registers the specified round metrics listener to this topology. The listener will be notified at the end of
+     * every round with the {@link RoundMetrics} of the round.</p>
+     *
+     * <p>The rounds are only profiled while at least one such listener is registered.</p>
+     *
+     * @param listener The round metrics listener.
+     */
+    public void addRoundMetricsListener(RoundMetricsListener listener) {
+        roundMetricsListeners.add(listener);
+        if (roundMetrics == null)
+            roundMetrics = new RoundMetrics();
+    }
+
+    /**
+     * Unregisters the specified round metrics listener for this topology.
+     *
+     * @param listener The round metrics listener.
+     */
+    public void removeRoundMetricsListener(RoundMetricsListener listener) {
+        roundMetricsListeners.remove(listener);
+        if (roundMetricsListeners.isEmpty())
+            roundMetrics = null;
+    }
+
     /**
      * Registers the specified selection listener to this topology. The listener
      * will be notified every time a node is selected.
@@ -1071,6 +1348,9 @@ public class Topology extends Properties implements ClockListener {
     protected void notifyLinkAdded(Link l) {
         List<ConnectivityListener> listeners;
         if (l.orientation == Orientation.DIRECTED) {
+            RoundMetrics metrics = roundMetrics;
+            if (metrics != null)
+                metrics.nbAddedArcs++;
             l.endpoint(0).onDirectedLinkAdded(l);
             l.endpoint(1).onDirectedLinkAdded(l);
             listeners = cxDirectedListeners;
@@ -1086,6 +1366,9 @@ public class Topology extends Properties implements ClockListener {
     protected void notifyLinkRemoved(Link l) {
         List<ConnectivityListener> listeners;
         if (l.orientation == Orientation.DIRECTED) {
+            RoundMetrics metrics = roundMetrics;
+            if (metrics != null)
+                metrics.nbRemovedArcs++;
             l.endpoint(0).onDirectedLinkRemoved(l);
             l.endpoint(1).onDirectedLinkRemoved(l);
             listeners = cxDirectedListeners;
@@ -1114,6 +1397,9 @@ public class Topology extends Properties implements ClockListener {
     }
 
     protected void notifyMessageDelivered(Message message) {
+        RoundMetrics metrics = roundMetrics;
+        if (metrics != null)
+            metrics.nbDeliveredMessages++;
         for (MessageListener listener : new ArrayList<>(messageListeners))
             listener.onMessage(message);
     }
@@ -1124,13 +1410,51 @@ public class Topology extends Properties implements ClockListener {
             pause();
             step = false;
         }
+        RoundMetrics metrics = roundMetrics;
         if (refreshMode == RefreshMode.CLOCKBASED) {
-            for (Node node : toBeUpdated)
-                update(node);
-            toBeUpdated.clear();
+            refreshTouchedNodes();
+            if (metrics != null)
+                metrics.endPhase(RoundMetrics.Phase.LINK_REFRESH);
         }
 
         removeDyingNodes();
+        if (metrics != null)
+            metrics.endPhase(RoundMetrics.Phase.DYING_NODES_REMOVAL);
+    }
+
+    protected void notifyRoundStart(RoundMetrics metrics) {
+        for (RoundMetricsListener listener : new ArrayList<>(roundMetricsListeners))
+            listener.onRoundStart(metrics);
+    }
+
+    protected void notifyRoundMetrics(RoundMetrics metrics) {
+        for (RoundMetricsListener listener : new ArrayList<>(roundMetricsListeners))
+            listener.onRoundMetrics(metrics);
+    }
+
+    private void refreshTouchedNodes() {
+        List<Node> touchedNodes = new ArrayList<>(toBeUpdated);
+        toBeUpdated.clear();
+        if (canUseSpatialIndex())
+            refresh(touchedNodes);
+        else
+            for (Node node : touchedNodes)
+                update(node);
+        fullRefreshPending = false;
+    }
+
+    /**
+     * Updates the links and sensed nodes of all the specified nodes in a single batch, each pair of nodes being
+     * checked once.
+     */
+    private void refresh(List<Node> touchedNodes) {
+        ConnectivityRefresh refresh = new ConnectivityRefresh(this);
+        for (Node node : touchedNodes)
+            refresh.addNode(node, getNearbyNodes(node));
+        refresh.compute(refreshPool);
+        for (Node node : touchedNodes)
+            spatialIndex.markRefreshed(node);
+        refresh.apply();
     }
 
     private void removeDyingNodes() {
@@ -1145,13 +1469,147 @@ public class Topology extends Properties implements ClockListener {
     }
 
     void touch(Node n) {
+        if (isDeferringChanges && defer(() -> touchIfPresent(n)))
+            return;
+        RoundMetrics metrics = roundMetrics;
+        if (metrics != null)
+            metrics.nbTouchedNodes++;
+        if (isSpatialIndexEnabled) {
+            if (spatialIndex.ensureRange(getLargestRange(n), nodes))
+                fullRefreshPending = true;
+            spatialIndex.move(n);
+        }
         if (refreshMode == RefreshMode.CLOCKBASED)
             toBeUpdated.add(n);
-        else
+        else {
             update(n);
+            fullRefreshPending = false;
+        }
+    }
+
+    void onRangeChanged(Node n) {
+        if (isDeferringChanges && defer(() -> onRangeChanged(n)))
+            return;
+        if (isSpatialIndexEnabled && spatialIndex.ensureRange(getLargestRange(n), nodes))
+            fullRefreshPending = true;
+    }
+
+    void onWakeUpRequested(Node n) {
+        if (isDeferringChanges && defer(() -> onWakeUpRequested(n)))
+            return;
+        if (n.wakeUpTime > getTime())
+            wakeUps.add(new WakeUp(n.wakeUpTime, n));
+    }
+
+    /**
+     * Returns the next round, after the specified one, during which something must happen, as used by the
+     * discrete-event mode. The {@link ClockListener ClockListeners} are not taken into account.
+     */
+    int getNextEventTime(int currentTime) {
+        int next = currentTime + 1;
+        if (!toBeUpdated.isEmpty())
+            return next;
+        for (Node node : nodes)
+            if (node.isAwake(next))
+                return next;
+        int result = getMessageEngine().getNextEventTime(currentTime);
+        WakeUp wakeUp = wakeUps.peek();
+        while (wakeUp != null && !wakeUp.isValid(this, currentTime)) {
+            wakeUps.poll();
+            wakeUp = wakeUps.peek();
+        }
+        if (wakeUp != null)
+            result = Math.min(result, wakeUp.time);
+        return Math.max(result, next);
+    }
+
+    private void touchIfPresent(Node n) {
+        if (n.topo == this)
+            touch(n);
+    }
+
+    /**
+     * Buffers the specified change if it is requested from within a parallel phase of the {@link ParallelScheduler},
+     * so that it is applied at the end of the phase, on the clock thread.
+     *
+     * @param change the change to be buffered.
+     * @return <code>true</code> if the change has been buffered, <code>false</code> if it must be applied now.
+     */
+    boolean defer(Runnable change) {
+        List<Runnable> buffer = deferredChanges.get();
+        if (buffer == null)
+            return false;
+        buffer.add(change);
+        return true;
+    }
+
+    /**
+     * Tests whether the calling thread is the one running the current round, or runs a parallel phase of the
+     * {@link ParallelScheduler}. Messages sent from any other thread go through the concurrent send queue of the
+     * sender.
+     *
+     * @return <code>true</code> if the calling thread takes part in the current round.
+     */
+    boolean isRoundThread() {
+        if (Thread.currentThread() == roundThread)
+            return true;
+        return isDeferringChanges && deferredChanges.get() != null;
+    }
+
+    private boolean deferAddition(double x, double y, Node n) {
+        return defer(() -> addNode(x, y, n));
+    }
+
+    private double getLargestRange(Node n) {
+        double communication = (n.communicationRange != null) ? n.communicationRange : 0;
+        double sensing = (n.sensingRange != null) ? n.sensingRange : 0;
+        return Math.max(communication, sensing);
     }
 
     void update(Node n) {
+        if (canUseSpatialIndex()) {
+            List<Node> candidates = getNearbyNodes(n);
+            spatialIndex.markRefreshed(n);
+            updateNearby(n, candidates);
+        } else {
+            spatialIndex.markRefreshed(n);
+            updateAll(n);
+        }
+    }
+
+    private boolean canUseSpatialIndex() {
+        if (!linkResolver.isBoundedByCommunicationRange())
+            hasUnboundedLinks = true;
+        return isSpatialIndexEnabled && spatialIndex.isBounded() && !fullRefreshPending && !hasUnboundedLinks;
+    }
+
+    /**
+     * Returns the nodes found around the specified node in the spatial index, plus its current out-neighbors and
+     * sensed nodes (which may have moved away in the meantime).
+     */
+    private List<Node> getNearbyNodes(Node n) {
+        LinkedHashSet<Node> nearby = new LinkedHashSet<>();
+        spatialIndex.collectNeighborhood(n, nearby);
+        nearby.addAll(n.outLinks.keySet());
+        nearby.addAll(n.sensedNodes);
+        nearby.remove(n);
+        return new ArrayList<>(nearby);
+    }
+
+    private void updateNearby(Node n, List<Node> candidates) {
+        for (Node n2 : candidates)
+            if (n2.topo == this) {
+                updateWirelessLink(n, n2);
+                updateWirelessLink(n2, n);
+            }
+        for (Node n2 : candidates)
+            if (n2.topo == this) {
+                updateSensedNodes(n, n2);
+                updateSensedNodes(n2, n);
+            }
+    }
+
+    private void updateAll(Node n) {
         for (Node n2 : nodes)
             if (n2 != n) {
                 updateWirelessLink(n, n2);
@@ -1192,6 +1650,86 @@ public class Topology extends Properties implements ClockListener {
         return super.toString();
     }
 
+    // region Random
+
+    /**
+     * <p>Sets the seed from which every random stream of this topology is derived.</p>
+     *
+     * <p>The locations drawn by {@link #addNode(double, double, Node)}, the streams returned by
+     * {@link #getRandom(String)} and by {@link #getRandom(Node)} are restarted from this seed. Two topologies with the
+     * same seed thus produce the same random values, as long as each stream is used in the same order. The streams
+     * already held by the subsystems are not affected: the seed should be set before the simulation is built.</p>
+     *
+     * <p>By default, a topology is given a random seed, which can be retrieved with {@link #getSeed()}.</p>
+     *
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+        seedToken = new Object();
+        randomStreams.clear();
+    }
+
+    /**
+     * Gets the seed from which every random stream of this topology is derived.
+     *
+     * @return the seed.
+     * @see #setSeed(long)
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * <p>Gets the random stream of the specified subsystem, derived from the seed of this topology and from its
+     * name only, so that it does not depend on the order in which the subsystems are created.</p>
+     *
+     * <p>The same stream is returned on each call with the same name. Like any {@link SplittableRandom}, it must not
+     * be shared between threads: a subsystem which needs several streams can {@link SplittableRandom#split()} it.</p>
+     *
+     * @param name the name of the subsystem, usually its class name.
+     * @return the random stream of the subsystem.
+     */
+    public SplittableRandom getRandom(String name) {
+        SplittableRandom stream = randomStreams.get(name);
+        if (stream == null)
+            stream = randomStreams.computeIfAbsent(name,
+                    key -> new SplittableRandom(deriveSeed(seed, (long) key.hashCode() << 1)));
+        return stream;
+    }
+
+    /**
+     * <p>Gets the random stream of the specified {@link Node}, derived from the seed of this topology and from the
+     * identifier of the node.</p>
+     *
+     * <p>The stream is created on the first call, then kept by the node, so that each node can draw from its own
+     * stream without contention.</p>
+     *
+     * @param node the {@link Node}.
+     * @return the random stream of the node.
+     * @see Node#getRandom()
+     */
+    public SplittableRandom getRandom(Node node) {
+        if (node.random == null || node.randomSeedToken != seedToken) {
+            node.random = new SplittableRandom(deriveSeed(seed, ((long) node.getID() << 1) | 1));
+            node.randomSeedToken = seedToken;
+        }
+        return node.random;
+    }
+
+    private static long deriveSeed(long seed, long key) {
+        return mix(seed ^ mix(key));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // endregion
+
     // region Command management
 
     protected ArrayList<CommandListener> commandListeners = new ArrayList<>();
@@ -1337,4 +1875,23 @@ public class Topology extends Properties implements ClockListener {
     }
 
     // endregion
+
+    static class WakeUp implements Comparable<WakeUp> {
+        final int time;
+        final Node node;
+
+        WakeUp(int time, Node node) {
+            this.time = time;
+            this.node = node;
+        }
+
+        boolean isValid(Topology topology, int currentTime) {
+            return time > currentTime && node.topo == topology && node.wakeUpTime == time;
+        }
+
+        @Override
+        public int compareTo(WakeUp other) {
+            return Integer.compare(time, other.time);
+        }
+    }
 }
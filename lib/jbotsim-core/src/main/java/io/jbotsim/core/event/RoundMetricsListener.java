@@ -0,0 +1,39 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.core.event;
+
+import io.jbotsim.core.RoundMetrics;
+
+public interface RoundMetricsListener {
+    /**
+     * Notifies the underlying RoundMetricsListener that a round starts. Does nothing by default.
+     * @param metrics The metrics of the round, in which only the round number is set yet.
+     */
+    default void onRoundStart(RoundMetrics metrics) {
+    }
+
+    /**
+     * Notifies the underlying RoundMetricsListener that a round is over. The metrics are reused for the next round,
+     * and must not be kept.
+     * @param metrics The metrics of the round.
+     */
+    void onRoundMetrics(RoundMetrics metrics);
+}
@@ -38,6 +38,22 @@ public interface TopologySerializer {
      */
     String exportToString(Topology topology);
 
+    /**
+     * Exports this topology into the specified file, opened with the {@link FileManager} of the topology. The content
+     * of the file is the one returned by {@link TopologySerializer#exportToString(Topology)}.
+     *
+     * <p>The default implementation writes the result of {@link TopologySerializer#exportToString(Topology)};
+     * implementations may override it to stream the topology to the file instead.</p>
+     *
+     * @param topology The {@link Topology} object which must be exported
+     * @param filename The path to the file
+     */
+    default void exportToFile(Topology topology, String filename) {
+        String exportedTopology = exportToString(topology);
+        if (exportedTopology != null)
+            topology.getFileManager().write(filename, exportedTopology);
+    }
+
     /**
      * Imports nodes and wired links from the specified string representation of a
      * topology.
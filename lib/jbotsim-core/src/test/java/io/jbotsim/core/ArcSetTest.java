@@ -0,0 +1,98 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArcSetTest {
+
+    private final Node n1 = new Node();
+    private final Node n2 = new Node();
+
+    @Test
+    void add_insertionOrderKept() {
+        Link arc1 = new Link(n1, n2, Link.Orientation.DIRECTED);
+        Link arc2 = new Link(n2, n1, Link.Orientation.DIRECTED);
+        Link loop = new Link(n1, n1, Link.Orientation.DIRECTED);
+        ArcSet arcs = new ArcSet();
+
+        arcs.add(arc2);
+        arcs.add(loop);
+        arcs.add(arc1);
+
+        assertEquals(Arrays.asList(arc2, loop, arc1), new ArrayList<>(arcs));
+    }
+
+    @Test
+    void remove_loopRegisteredTwice_removedOneByOne() {
+        Link loop = new Link(n1, n1, Link.Orientation.DIRECTED);
+        ArcSet arcs = new ArcSet();
+        arcs.add(loop);
+        arcs.add(new Link(n1, n1, Link.Orientation.DIRECTED));
+        assertEquals(Arrays.asList(loop, loop), new ArrayList<>(arcs));
+
+        assertTrue(arcs.remove(loop));
+        assertEquals(1, arcs.size());
+        assertTrue(arcs.contains(loop));
+
+        assertTrue(arcs.remove(loop));
+        assertTrue(arcs.isEmpty());
+        assertFalse(arcs.remove(loop));
+    }
+
+    @Test
+    void removeAll_loopRegisteredTwice_allRemoved() {
+        Link arc = new Link(n1, n2, Link.Orientation.DIRECTED);
+        Link loop = new Link(n1, n1, Link.Orientation.DIRECTED);
+        ArcSet arcs = new ArcSet();
+        arcs.add(loop);
+        arcs.add(arc);
+        arcs.add(loop);
+
+        arcs.removeAll(loop);
+
+        assertEquals(1, arcs.size());
+        assertEquals(Arrays.asList(arc), new ArrayList<>(arcs));
+    }
+
+    @Test
+    void removeLink_undirectedLoop_allArcsRemoved() {
+        Topology topology = new Topology();
+        topology.disableWireless();
+        topology.addNode(n1);
+        topology.addNode(n2);
+        topology.addLink(new Link(n1, n1));
+        topology.addLink(new Link(n1, n2));
+        assertEquals(4, topology.getLinks(Link.Orientation.DIRECTED).size());
+
+        topology.removeLink(new Link(n1, n1));
+
+        assertEquals(2, topology.getLinks(Link.Orientation.DIRECTED).size());
+        assertEquals(1, topology.getLinks(Link.Orientation.UNDIRECTED).size());
+    }
+}
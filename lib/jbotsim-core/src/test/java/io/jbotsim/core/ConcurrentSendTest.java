@@ -0,0 +1,131 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentSendTest {
+    private static final int NB_THREADS = 4;
+    private static final int NB_MESSAGES_PER_THREAD = 10000;
+
+    private Topology topology;
+    private Node sender;
+    private ReceivingNode receiver;
+
+    @BeforeEach
+    void setUp() {
+        topology = new Topology();
+        sender = new Node();
+        receiver = new ReceivingNode();
+        topology.addNode(100, 100, sender);
+        topology.addNode(120, 100, receiver);
+        topology.runRounds(1);
+    }
+
+    @Test
+    void send_fromOtherThreads_allDeliveredInSendingOrder() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(NB_THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < NB_THREADS; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < NB_MESSAGES_PER_THREAD; i++)
+                    sender.send(receiver, new Message(new int[]{thread, i}));
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        topology.runRounds(1);
+
+        assertEquals(NB_THREADS * NB_MESSAGES_PER_THREAD, receiver.received.size());
+        int[] lastIndexes = new int[NB_THREADS];
+        for (Message message : receiver.received) {
+            int[] content = (int[]) message.getContent();
+            assertEquals(lastIndexes[content[0]]++, content[1]);
+        }
+    }
+
+    @Test
+    void send_betweenRounds_inOutboxAndDelivered() {
+        sender.send(receiver, new Message(0));
+
+        assertEquals(1, sender.getOutbox().size());
+        assertEquals(topology.getTime() + 1, topology.getMessageEngine().getNextEventTime(topology.getTime()));
+
+        topology.runRounds(1);
+
+        assertEquals(1, receiver.received.size());
+        assertTrue(sender.getOutbox().isEmpty());
+    }
+
+    @Test
+    void send_duringRound_inSendQueue() {
+        Node node = new Node() {
+            @Override
+            public void onClock() {
+                sendAll(new Message());
+            }
+        };
+        topology.addNode(110, 110, node);
+
+        topology.runRounds(1);
+
+        assertEquals(1, node.sendQueue.size());
+        assertTrue(node.concurrentSendQueue.isEmpty());
+    }
+
+    @Test
+    void reset_concurrentMessagesDiscarded() {
+        sender.send(receiver, new Message(0));
+
+        topology.getMessageEngine().reset();
+        topology.runRounds(1);
+
+        assertTrue(receiver.received.isEmpty());
+    }
+
+    private static class ReceivingNode extends Node {
+        final List<Message> received = new ArrayList<>();
+
+        @Override
+        public void onMessage(Message message) {
+            received.add(message);
+        }
+    }
+}
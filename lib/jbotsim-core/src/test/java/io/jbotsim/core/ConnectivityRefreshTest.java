@@ -0,0 +1,150 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import io.jbotsim.core.event.ConnectivityListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectivityRefreshTest {
+    private static final int NB_NODES = 300;
+    private static final int NB_ROUNDS = 30;
+
+    private CountingLinkResolver resolver;
+    private Topology topology;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new CountingLinkResolver();
+        topology = new Topology();
+        topology.setRefreshMode(Topology.RefreshMode.CLOCKBASED);
+        topology.setLinkResolver(resolver);
+    }
+
+    @Test
+    void bothNodesMoved_pairCheckedOnce() {
+        Node n1 = new Node();
+        Node n2 = new Node();
+        topology.addNode(10, 10, n1);
+        topology.addNode(50, 10, n2);
+        topology.onClock();
+        resolver.calls.set(0);
+
+        n1.translate(1, 0);
+        n2.translate(1, 0);
+        topology.onClock();
+
+        assertEquals(2, resolver.calls.get());
+        assertNotNull(topology.getLink(n1, n2));
+    }
+
+    @Test
+    void nodeMovedSeveralTimes_checkedOnce() {
+        Node n1 = new Node();
+        Node n2 = new Node();
+        topology.addNode(10, 10, n1);
+        topology.addNode(50, 10, n2);
+        topology.onClock();
+        resolver.calls.set(0);
+
+        for (int i = 0; i < 5; i++)
+            n1.translate(1, 0);
+        topology.onClock();
+
+        assertEquals(2, resolver.calls.get());
+    }
+
+    @Test
+    void removedBeforeRefresh_noLinkCreated() {
+        Node n1 = new Node();
+        Node n2 = new Node();
+        topology.addNode(10, 10, n1);
+        topology.addNode(500, 10, n2);
+        topology.onClock();
+
+        n2.setLocation(50, 10);
+        topology.removeNode(n2);
+        topology.onClock();
+
+        assertTrue(topology.getLinks().isEmpty());
+    }
+
+    @Test
+    void parallelRefresh_sameEventsAsSequentialRefresh() {
+        List<String> sequentialEvents = runRandomScenario(false);
+        List<String> parallelEvents = runRandomScenario(true);
+
+        assertFalse(sequentialEvents.isEmpty());
+        assertEquals(sequentialEvents, parallelEvents);
+    }
+
+    private List<String> runRandomScenario(boolean parallel) {
+        Random random = new Random(7);
+        Topology tp = new Topology();
+        tp.setRefreshMode(Topology.RefreshMode.CLOCKBASED);
+        if (parallel)
+            tp.enableParallelRefresh();
+        List<String> events = new ArrayList<>();
+        tp.addConnectivityListener(new ConnectivityListener() {
+            @Override
+            public void onLinkAdded(Link link) {
+                events.add("+" + link);
+            }
+
+            @Override
+            public void onLinkRemoved(Link link) {
+                events.add("-" + link);
+            }
+        });
+        for (int i = 0; i < NB_NODES; i++)
+            tp.addNode(random.nextDouble() * 1000, random.nextDouble() * 1000);
+        tp.onClock();
+        for (int round = 0; round < NB_ROUNDS; round++) {
+            for (Node node : tp.getNodes())
+                node.translate(random.nextGaussian() * 30, random.nextGaussian() * 30);
+            tp.onClock();
+        }
+        return events;
+    }
+
+    private static class CountingLinkResolver extends LinkResolver {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public boolean isHeardBy(Node n1, Node n2) {
+            calls.incrementAndGet();
+            return super.isHeardBy(n1, n2);
+        }
+
+        @Override
+        public boolean isBoundedByCommunicationRange() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultMessageEngineTest {
+
+    private Topology topology;
+    private DefaultMessageEngine engine;
+    private Node sender;
+    private Node destination;
+
+    @BeforeEach
+    void setUp() {
+        topology = new Topology();
+        engine = new DefaultMessageEngine(topology);
+        sender = new Node();
+        destination = new Node();
+        topology.addNode(100, 100, sender);
+        topology.addNode(120, 100, destination);
+    }
+
+    @Test
+    void isInTopology_addedThenRemoved() {
+        assertTrue(engine.isInTopology(sender));
+
+        topology.removeNode(sender);
+
+        assertFalse(engine.isInTopology(sender));
+        assertFalse(engine.isInTopology(null));
+    }
+
+    @Test
+    void isInTopology_otherTopology_false() {
+        Node other = new Node();
+        new Topology().addNode(other);
+
+        assertFalse(engine.isInTopology(other));
+    }
+
+    @Test
+    void requeueIfNeeded_bothNodesPresent_requeued() {
+        Message message = new Message(sender, destination, "content");
+        message.retryMode = true;
+
+        engine.requeueIfNeeded(message, Collections.emptyList());
+
+        assertEquals(1, sender.sendQueue.size());
+    }
+
+    @Test
+    void requeueIfNeeded_destinationRemoved_notRequeued() {
+        Message message = new Message(sender, destination, "content");
+        message.retryMode = true;
+        topology.removeNode(destination);
+
+        engine.requeueIfNeeded(message, topology.getNodes());
+
+        assertTrue(sender.sendQueue.isEmpty());
+    }
+}
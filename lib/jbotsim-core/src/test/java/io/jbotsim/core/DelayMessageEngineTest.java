@@ -0,0 +1,228 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelayMessageEngineTest {
+    private static final int DELAY = 10;
+
+    private Topology topology;
+    private DelayMessageEngine engine;
+    private SendingNode sender;
+    private ReceivingNode receiver;
+
+    @BeforeEach
+    void setUp() {
+        topology = new Topology();
+        engine = new DelayMessageEngine(topology, DELAY);
+        topology.setMessageEngine(engine);
+        sender = new SendingNode();
+        receiver = new ReceivingNode();
+        topology.addNode(100, 100, sender);
+        topology.addNode(120, 100, receiver);
+        topology.runRounds(1);
+    }
+
+    @Test
+    void delivery_afterDelay() {
+        sender.send(receiver, new Message(0));
+
+        topology.runRounds(DELAY + 1);
+
+        assertEquals(1, receiver.received.size());
+        assertEquals(DELAY, (int) receiver.deliveryTimes.get(0));
+    }
+
+    @Test
+    void delivery_delaysLongerThanWheel_allDeliveredInOrder() {
+        engine.setDelay(100);
+        for (int i = 0; i < 150; i++) {
+            sender.send(receiver, new Message(i));
+            topology.runRounds(1);
+        }
+
+        topology.runRounds(100);
+
+        assertEquals(150, receiver.received.size());
+        for (int i = 0; i < 150; i++) {
+            assertEquals(i, receiver.received.get(i).getContent());
+            assertEquals(100 + i, (int) receiver.deliveryTimes.get(i));
+        }
+    }
+
+    @Test
+    void linkBroken_messageDropped() {
+        sender.send(receiver, new Message(0));
+        topology.runRounds(3);
+
+        receiver.setLocation(1000, 1000);
+        topology.runRounds(1);
+        receiver.setLocation(120, 100);
+        topology.runRounds(DELAY);
+
+        assertTrue(receiver.received.isEmpty());
+    }
+
+    @Test
+    void linkBroken_checksDisabled_messageDelivered() {
+        engine.disableLinksContinuityChecks();
+        sender.send(receiver, new Message(0));
+        topology.runRounds(3);
+
+        receiver.setLocation(1000, 1000);
+        topology.runRounds(1);
+        receiver.setLocation(120, 100);
+        topology.runRounds(DELAY);
+
+        assertEquals(1, receiver.received.size());
+    }
+
+    @Test
+    void linkRestoredWithinRound_messageDelivered() {
+        sender.send(receiver, new Message(0));
+        topology.runRounds(3);
+
+        receiver.setLocation(1000, 1000);
+        receiver.setLocation(120, 100);
+        topology.runRounds(DELAY);
+
+        assertEquals(1, receiver.received.size());
+    }
+
+    @Test
+    void linkBroken_laterMessagesDelivered() {
+        sender.send(receiver, new Message(0));
+        topology.runRounds(3);
+        receiver.setLocation(1000, 1000);
+        topology.runRounds(1);
+        receiver.setLocation(120, 100);
+
+        sender.send(receiver, new Message(1));
+        topology.runRounds(DELAY + 1);
+
+        assertEquals(1, receiver.received.size());
+        assertEquals(1, receiver.received.get(0).getContent());
+    }
+
+    @Test
+    void linkBroken_retryMessageRequeuedAndDelivered() {
+        sender.sendRetry(receiver, new Message(0));
+        topology.runRounds(3);
+
+        receiver.setLocation(1000, 1000);
+        topology.runRounds(1);
+        receiver.setLocation(120, 100);
+        topology.runRounds(2 * DELAY);
+
+        assertEquals(1, receiver.received.size());
+        assertEquals(0, receiver.received.get(0).getContent());
+    }
+
+    @Test
+    void linkBroken_retryMessagesOnOtherArcsDeliveredOnTime() {
+        ReceivingNode other = new ReceivingNode();
+        topology.addNode(100, 120, other);
+        topology.runRounds(1);
+        sender.sendRetry(receiver, new Message(0));
+        sender.sendRetry(other, new Message(1));
+        topology.runRounds(3);
+
+        receiver.setLocation(1000, 1000);
+        topology.runRounds(DELAY);
+
+        assertTrue(receiver.received.isEmpty());
+        assertEquals(1, other.received.size());
+        assertEquals(DELAY + 1, (int) other.deliveryTimes.get(0));
+    }
+
+    @Test
+    void engineReplaced_arcRemovalsNoLongerListened() {
+        int nbListeners = topology.cxDirectedListeners.size();
+
+        topology.setMessageEngine(new DefaultMessageEngine(topology));
+
+        assertEquals(nbListeners - 1, topology.cxDirectedListeners.size());
+    }
+
+    @Test
+    void destinationRemoved_messageDropped() {
+        sender.send(receiver, new Message(0));
+        topology.runRounds(3);
+
+        topology.removeNode(receiver);
+        topology.runRounds(1);
+        topology.addNode(120, 100, receiver);
+        topology.runRounds(DELAY);
+
+        assertTrue(receiver.received.isEmpty());
+    }
+
+    @Test
+    void nodesRemovedUnderContinuousTraffic_linkBreaksForgotten() {
+        for (int i = 0; i < 100; i++) {
+            Node passing = new Node();
+            topology.addNode(100, 120, passing);
+            sender.send(receiver, new Message(i));
+            topology.runRounds(1);
+            topology.removeNode(passing);
+            topology.runRounds(1);
+        }
+
+        assertTrue(engine.getNbLinkBreaks() <= 2 * DELAY, "link breaks: " + engine.getNbLinkBreaks());
+        assertFalse(receiver.received.isEmpty());
+        for (int i = 0; i < receiver.received.size(); i++)
+            assertEquals(i, receiver.received.get(i).getContent());
+    }
+
+    @Test
+    void reset_delayedMessagesDiscarded() {
+        sender.send(receiver, new Message(0));
+        topology.runRounds(3);
+
+        engine.reset();
+        topology.runRounds(DELAY);
+
+        assertTrue(receiver.received.isEmpty());
+        assertEquals(Integer.MAX_VALUE, engine.getNextEventTime(topology.getTime()));
+    }
+
+    private static class SendingNode extends Node {
+    }
+
+    private static class ReceivingNode extends Node {
+        final List<Message> received = new ArrayList<>();
+        final List<Integer> deliveryTimes = new ArrayList<>();
+
+        @Override
+        public void onMessage(Message message) {
+            received.add(message);
+            deliveryTimes.add(getTime());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeliveryTraceBufferTest {
+
+    private Topology topology;
+    private Node sender;
+    private Node receiver;
+
+    @BeforeEach
+    void setUp() {
+        topology = new Topology();
+        sender = new Node();
+        receiver = new Node();
+        topology.addNode(100, 100, sender);
+        topology.addNode(120, 100, receiver);
+        topology.runRounds(1);
+    }
+
+    @Test
+    void capacity_roundedUpToPowerOfTwo() {
+        assertEquals(8, new DeliveryTraceBuffer(5).getCapacity());
+        assertEquals(8, new DeliveryTraceBuffer(8).getCapacity());
+    }
+
+    @Test
+    void delivery_recorded() {
+        DeliveryTraceBuffer buffer = new DeliveryTraceBuffer(16);
+        ((DefaultMessageEngine) topology.getMessageEngine()).setDeliveryTraceBuffer(buffer);
+
+        int[] deliveryTime = new int[1];
+        topology.addMessageListener(message -> deliveryTime[0] = topology.getTime());
+        sender.send(receiver, new Message("hello", "flag"));
+        topology.runRounds(1);
+
+        int[] records = new int[4 * DeliveryTraceBuffer.RECORD_SIZE];
+        assertEquals(1, buffer.read(records));
+        assertEquals(deliveryTime[0], records[DeliveryTraceBuffer.TIME]);
+        assertEquals(sender.getID(), records[DeliveryTraceBuffer.SENDER_ID]);
+        assertEquals(receiver.getID(), records[DeliveryTraceBuffer.DESTINATION_ID]);
+        assertEquals("flag".hashCode(), records[DeliveryTraceBuffer.FLAG_HASH]);
+        assertEquals(10, records[DeliveryTraceBuffer.SIZE]);
+        assertEquals(0, buffer.read(records));
+    }
+
+    @Test
+    void tracingDisabled_nothingRecorded() {
+        DeliveryTraceBuffer buffer = new DeliveryTraceBuffer(16);
+        DefaultMessageEngine engine = (DefaultMessageEngine) topology.getMessageEngine();
+        engine.setDeliveryTraceBuffer(buffer);
+        engine.setDeliveryTraceBuffer(null);
+
+        sender.send(receiver, new Message());
+        topology.runRounds(1);
+
+        assertEquals(0, buffer.getNbWrittenRecords());
+    }
+
+    @Test
+    void readerLate_oldestRecordsLost() {
+        DeliveryTraceBuffer buffer = new DeliveryTraceBuffer(4);
+        for (int i = 0; i < 10; i++)
+            buffer.record(i, createMessage());
+
+        int[] records = new int[10 * DeliveryTraceBuffer.RECORD_SIZE];
+        assertEquals(4, buffer.read(records));
+        assertEquals(6, buffer.getNbLostRecords());
+        for (int i = 0; i < 4; i++)
+            assertEquals(6 + i, records[i * DeliveryTraceBuffer.RECORD_SIZE + DeliveryTraceBuffer.TIME]);
+    }
+
+    @Test
+    void readerBufferSmall_remainingRecordsReadLater() {
+        DeliveryTraceBuffer buffer = new DeliveryTraceBuffer(8);
+        for (int i = 0; i < 5; i++)
+            buffer.record(i, createMessage());
+
+        int[] records = new int[3 * DeliveryTraceBuffer.RECORD_SIZE];
+        assertEquals(3, buffer.read(records));
+        assertEquals(2, buffer.read(records));
+        assertEquals(3, records[DeliveryTraceBuffer.TIME]);
+        assertEquals(0, buffer.getNbLostRecords());
+    }
+
+    @Test
+    void concurrentReader_noTornRecords() throws InterruptedException {
+        int nbRecords = 200000;
+        DeliveryTraceBuffer buffer = new DeliveryTraceBuffer(64);
+        buffer.setSizeEstimator(message -> (Integer) message.getContent());
+        Message[] messages = new Message[16];
+        for (int i = 0; i < messages.length; i++)
+            messages[i] = new Message(sender, receiver, i);
+
+        AtomicBoolean torn = new AtomicBoolean(false);
+        long[] nbRead = new long[1];
+        Thread reader = new Thread(() -> {
+            int[] records = new int[32 * DeliveryTraceBuffer.RECORD_SIZE];
+            while (nbRead[0] + buffer.getNbLostRecords() < nbRecords) {
+                int nbCopied = buffer.read(records);
+                for (int i = 0; i < nbCopied; i++) {
+                    int offset = i * DeliveryTraceBuffer.RECORD_SIZE;
+                    if (records[offset + DeliveryTraceBuffer.TIME] % messages.length != records[offset + DeliveryTraceBuffer.SIZE])
+                        torn.set(true);
+                }
+                nbRead[0] += nbCopied;
+            }
+        });
+        reader.start();
+        for (int i = 0; i < nbRecords; i++)
+            buffer.record(i, messages[i % messages.length]);
+        reader.join(10000);
+
+        assertFalse(reader.isAlive());
+        assertFalse(torn.get());
+        assertEquals(nbRecords, nbRead[0] + buffer.getNbLostRecords());
+    }
+
+    private Message createMessage() {
+        return new Message(sender, receiver, 0);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiscreteEventModeTest {
+    private static final int DELAY = 100;
+    private static final int LAST_ROUND = 1000;
+
+    @Test
+    void hasClockCallbacks_plainNode_false() {
+        assertFalse(new Node().hasClockCallbacks());
+        assertFalse(new ReceivingNode().hasClockCallbacks());
+    }
+
+    @Test
+    void hasClockCallbacks_onPostClockOverridden_true() {
+        Node node = new Node() {
+            @Override
+            public void onPostClock() {
+            }
+        };
+
+        assertTrue(node.hasClockCallbacks());
+    }
+
+    @Test
+    void delayedMessages_sameDeliveryTimesAsRegularMode() {
+        List<Integer> regular = runPingPong(false);
+        List<Integer> discreteEvent = runPingPong(true);
+
+        assertEquals(LAST_ROUND / DELAY, regular.size());
+        assertEquals(regular, discreteEvent);
+    }
+
+    @Test
+    void delayedMessages_idleRoundsSkipped() {
+        Topology tp = createPingPongTopology(new ArrayList<>());
+        tp.enableDiscreteEventMode();
+
+        int nbRounds = tp.runUntil(topology -> topology.getTime() >= LAST_ROUND);
+
+        assertTrue(nbRounds < 3 * LAST_ROUND / DELAY);
+    }
+
+    @Test
+    void clockListener_sameTimesAsRegularMode() {
+        assertEquals(runPeriodicListener(false, 37), runPeriodicListener(true, 37));
+    }
+
+    @Test
+    void clockListeners_periodsAroundWheelSize_sameTimesAsRegularMode() {
+        List<String> regular = runPeriodicListener(false, 300, 255);
+        List<String> discreteEvent = runPeriodicListener(true, 300, 255);
+
+        assertEquals(2 * LAST_ROUND / 300, regular.stream().filter(time -> time.startsWith("300@")).count());
+        assertEquals(regular, discreteEvent);
+    }
+
+    @Test
+    void wakeUpIn_nodeOnlyCalledOnWakeUp() {
+        Topology tp = new Topology();
+        tp.enableDiscreteEventMode();
+        List<Integer> times = new ArrayList<>();
+        tp.addNode(100, 100, new Node() {
+            @Override
+            public void onClock() {
+                times.add(getTime());
+                wakeUpIn(50);
+            }
+        });
+
+        tp.runRounds(3);
+
+        assertEquals(3, times.size());
+        assertEquals(0, (int) times.get(0));
+        assertEquals(50, (int) times.get(1));
+        assertEquals(100, (int) times.get(2));
+    }
+
+    @Test
+    void wakeUpAt_regularMode_ignored() {
+        Topology tp = new Topology();
+        List<Integer> times = new ArrayList<>();
+        tp.addNode(100, 100, new Node() {
+            @Override
+            public void onClock() {
+                times.add(getTime());
+                wakeUpIn(50);
+            }
+        });
+
+        tp.runRounds(3);
+
+        assertEquals(3, times.size());
+        assertEquals(2, (int) times.get(2));
+    }
+
+    private List<Integer> runPingPong(boolean discreteEvent) {
+        List<Integer> deliveryTimes = new ArrayList<>();
+        Topology tp = createPingPongTopology(deliveryTimes);
+        if (discreteEvent)
+            tp.enableDiscreteEventMode();
+        tp.runUntil(topology -> topology.getTime() >= LAST_ROUND);
+        return deliveryTimes;
+    }
+
+    private Topology createPingPongTopology(List<Integer> deliveryTimes) {
+        Topology tp = new Topology();
+        tp.setMessageEngine(new DelayMessageEngine(tp, DELAY));
+        ReceivingNode n1 = new ReceivingNode();
+        n1.deliveryTimes = deliveryTimes;
+        n1.isInitiator = true;
+        ReceivingNode n2 = new ReceivingNode();
+        n2.deliveryTimes = deliveryTimes;
+        tp.addNode(100, 100, n1);
+        tp.addNode(120, 100, n2);
+        return tp;
+    }
+
+    private List<String> runPeriodicListener(boolean discreteEvent, int... periods) {
+        Topology tp = new Topology();
+        if (discreteEvent)
+            tp.enableDiscreteEventMode();
+        List<String> times = new ArrayList<>();
+        int lastRound = 2 * LAST_ROUND;
+        for (int period : periods)
+            tp.addClockListener(() -> {
+                if (tp.getTime() <= lastRound)
+                    times.add(period + "@" + tp.getTime());
+            }, period);
+        tp.runUntil(topology -> topology.getTime() >= lastRound);
+        return times;
+    }
+
+    private static class ReceivingNode extends Node {
+        List<Integer> deliveryTimes;
+        boolean isInitiator = false;
+
+        @Override
+        public void onStart() {
+            if (isInitiator)
+                sendAll(new Message());
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            deliveryTimes.add(getTime());
+            sendAll(new Message());
+        }
+    }
+}
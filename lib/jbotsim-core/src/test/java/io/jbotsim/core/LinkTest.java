@@ -70,4 +70,32 @@ class LinkTest {
     }
     // endregion
 
+    // region hashCode
+
+    @Test
+    void hashCode_sameValues_sameHashCode() {
+        Link link1 = new Link(n1, n2, Link.Orientation.DIRECTED);
+        Link link2 = new Link(n1, n2, Link.Orientation.DIRECTED);
+
+        assertEquals(link1.hashCode(), link2.hashCode());
+    }
+
+    @Test
+    void hashCode_undirectedReversedEndpoints_sameHashCode() {
+        Link link1 = new Link(n1, n2, Link.Orientation.UNDIRECTED);
+        Link link2 = new Link(n2, n1, Link.Orientation.UNDIRECTED);
+
+        assertEquals(link1, link2);
+        assertEquals(link1.hashCode(), link2.hashCode());
+    }
+
+    @Test
+    void hashCode_differentMode_sameHashCode() {
+        Link link1 = new Link(n1, n2, Link.Orientation.UNDIRECTED, Link.Mode.WIRED);
+        Link link2 = new Link(n1, n2, Link.Orientation.UNDIRECTED, Link.Mode.WIRELESS);
+
+        assertEquals(link1.hashCode(), link2.hashCode());
+    }
+    // endregion
+
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static io.jbotsim.core.MessageStatistics.Counter.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageStatisticsTest {
+
+    private Topology topology;
+    private MessageStatistics statistics;
+    private Node sender;
+    private Node receiver;
+
+    @BeforeEach
+    void setUp() {
+        topology = new Topology();
+        statistics = new MessageStatistics();
+        sender = new Node();
+        receiver = new Node();
+        topology.addNode(100, 100, sender);
+        topology.addNode(120, 100, receiver);
+    }
+
+    @Test
+    void defaultEngine_countsByFlag() {
+        useEngine(new DefaultMessageEngine(topology));
+
+        sender.send(receiver, new Message(0, "a"));
+        sender.send(receiver, new Message(1, "a"));
+        sender.send(receiver, new Message(2, "b"));
+        topology.runRounds(1);
+
+        assertEquals(3, statistics.getCount(SENT));
+        assertEquals(3, statistics.getCount(DELIVERED));
+        assertEquals(2, statistics.getCount(DELIVERED, "a"));
+        assertEquals(1, statistics.getCount(DELIVERED, "b"));
+        assertEquals(0, statistics.getCount(DELIVERED, "c"));
+        assertTrue(statistics.getFlags().contains("a"));
+    }
+
+    @Test
+    void defaultEngine_broadcastCountedPerDestination() {
+        useEngine(new DefaultMessageEngine(topology));
+        topology.addNode(100, 120, new Node());
+
+        sender.sendAll(new Message());
+        topology.runRounds(1);
+
+        assertEquals(2, statistics.getCount(SENT));
+        assertEquals(2, statistics.getCount(DELIVERED));
+    }
+
+    @Test
+    void defaultEngine_countsByRound() {
+        useEngine(new DefaultMessageEngine(topology));
+
+        sender.send(receiver, new Message());
+        int[] deliveryTime = new int[1];
+        topology.addMessageListener(message -> deliveryTime[0] = topology.getTime());
+        topology.runRounds(1);
+        sender.send(receiver, new Message());
+        sender.send(receiver, new Message());
+        topology.runRounds(1);
+
+        assertEquals(2, statistics.getCount(DELIVERED, deliveryTime[0]));
+        assertEquals(1, statistics.getCount(DELIVERED, deliveryTime[0] - 1));
+        assertEquals(0, statistics.getCount(DELIVERED, deliveryTime[0] - statistics.getRoundHistory()));
+    }
+
+    @Test
+    void defaultEngine_linkBroken_droppedAndRequeued() {
+        useEngine(new DefaultMessageEngine(topology));
+
+        sender.send(receiver, new Message());
+        sender.sendRetry(receiver, new Message());
+        receiver.setLocation(1000, 1000);
+        topology.runRounds(1);
+
+        assertEquals(1, statistics.getCount(DROPPED));
+        assertEquals(1, statistics.getCount(REQUEUED));
+        assertEquals(0, statistics.getCount(DELIVERED));
+    }
+
+    @Test
+    void delayEngine_latenciesRecorded() {
+        useEngine(new DelayMessageEngine(topology, 5));
+
+        sender.send(receiver, new Message());
+        topology.runRounds(1);
+        sender.send(receiver, new Message());
+        topology.runRounds(10);
+
+        assertEquals(2, statistics.getNbLatencies());
+        assertEquals(2, statistics.getLatencyCount(MessageStatistics.getLatencyBucket(5)));
+        assertEquals(5, statistics.getMaxLatency());
+        assertEquals(5.0, statistics.getMeanLatency());
+    }
+
+    @Test
+    void delayEngine_linkBrokenDuringDelay_dropped() {
+        useEngine(new DelayMessageEngine(topology, 5));
+
+        sender.send(receiver, new Message());
+        topology.runRounds(2);
+        receiver.setLocation(1000, 1000);
+        topology.runRounds(1);
+        receiver.setLocation(120, 100);
+        topology.runRounds(5);
+
+        assertEquals(1, statistics.getCount(DROPPED));
+        assertEquals(0, statistics.getCount(DELIVERED));
+        assertEquals(0, statistics.getNbLatencies());
+    }
+
+    @Test
+    void latencyBuckets_powersOfTwo() {
+        assertEquals(0, MessageStatistics.getLatencyBucket(0));
+        assertEquals(1, MessageStatistics.getLatencyBucket(1));
+        assertEquals(2, MessageStatistics.getLatencyBucket(3));
+        assertEquals(3, MessageStatistics.getLatencyBucket(4));
+        assertEquals(MessageStatistics.NB_LATENCY_BUCKETS - 1, MessageStatistics.getLatencyBucket(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void reset_countsCleared() {
+        useEngine(new DefaultMessageEngine(topology));
+        sender.send(receiver, new Message(0, "a"));
+        topology.runRounds(1);
+
+        statistics.reset();
+
+        assertEquals(0, statistics.getCount(DELIVERED));
+        assertEquals(0, statistics.getCount(DELIVERED, "a"));
+        assertTrue(statistics.getFlags().isEmpty());
+    }
+
+    private void useEngine(DefaultMessageEngine engine) {
+        engine.setMessageStatistics(statistics);
+        topology.setMessageEngine(engine);
+        topology.runRounds(1);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageTest {
+
+    // region withDestination
+
+    @Test
+    void withDestination_sameContentAndProperties() {
+        Node destination = new Node();
+        Object content = new Object();
+        Message message = new Message(content, "flag");
+        message.setProperty("key", "value");
+
+        Message copy = message.withDestination(destination);
+
+        assertSame(destination, copy.getDestination());
+        assertSame(content, copy.getContent());
+        assertEquals("flag", copy.getFlag());
+        assertEquals("value", copy.getProperty("key"));
+    }
+
+    @Test
+    void withDestination_copyModified_originalUnchanged() {
+        Message message = new Message();
+        message.setProperty("key", "value");
+        Message copy = message.withDestination(new Node());
+
+        copy.setProperty("key", "other");
+        copy.setProperty("added", 1);
+
+        assertEquals("value", message.getProperty("key"));
+        assertFalse(message.hasProperty("added"));
+        assertEquals("other", copy.getProperty("key"));
+    }
+
+    @Test
+    void withDestination_originalModified_copyUnchanged() {
+        Message message = new Message();
+        message.setProperty("key", "value");
+        Message copy = message.withDestination(new Node());
+
+        message.removeProperty("key");
+
+        assertEquals("value", copy.getProperty("key"));
+    }
+
+    // endregion
+
+    // region broadcast
+
+    @Test
+    void sendAll_eachReceiverIsDestination() {
+        Topology tp = new Topology();
+        Node sender = new Node();
+        tp.addNode(100, 100, sender);
+        List<Node> receivers = new ArrayList<>();
+        List<Message> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Node receiver = new Node() {
+                @Override
+                public void onMessage(Message message) {
+                    received.add(message);
+                }
+            };
+            receivers.add(receiver);
+            tp.addNode(120 + 10 * i, 100, receiver);
+        }
+        Message message = new Message("content");
+        message.setProperty("key", "value");
+
+        tp.runRounds(1);
+        sender.sendAll(message);
+        tp.runRounds(1);
+
+        assertEquals(3, received.size());
+        for (Message m : received) {
+            assertSame(sender, m.getSender());
+            assertSame(m, m.getDestination().getMailbox().get(0));
+            assertTrue(receivers.contains(m.getDestination()));
+            assertEquals("value", m.getProperty("key"));
+        }
+    }
+
+    // endregion
+
+    // region recycling
+
+    @Test
+    void messageRecycling_broadcastCopiesReused() {
+        Topology tp = new Topology();
+        DefaultMessageEngine engine = new DefaultMessageEngine(tp);
+        engine.enableMessageRecycling();
+        tp.setMessageEngine(engine);
+        Node sender = new Node();
+        tp.addNode(100, 100, sender);
+        List<Message> received = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            tp.addNode(120 + 10 * i, 100, new Node() {
+                @Override
+                public void onMessage(Message message) {
+                    assertSame(this, message.getDestination());
+                    assertEquals(received.size() / 3, message.getContent());
+                    received.add(message);
+                }
+            });
+        tp.runRounds(1);
+
+        for (int round = 0; round < 3; round++) {
+            sender.sendAll(new Message(round));
+            tp.runRounds(1);
+        }
+
+        assertEquals(9, received.size());
+        for (int i = 3; i < 9; i++)
+            assertTrue(received.subList(0, 3).contains(received.get(i)));
+    }
+
+    @Test
+    void messageRecycling_unicast_poolSizeFlat() {
+        Topology tp = new Topology();
+        DefaultMessageEngine engine = new DefaultMessageEngine(tp);
+        engine.enableMessageRecycling();
+        tp.setMessageEngine(engine);
+        for (int i = 0; i < 10; i++)
+            tp.addNode(100 + 10 * i, 100, new Node() {
+                @Override
+                public void onClock() {
+                    for (Node neighbor : getNeighbors())
+                        send(neighbor, new Message());
+                }
+            });
+        tp.runRounds(10);
+        int size = engine.getMessagePool().size();
+
+        tp.runRounds(1000);
+
+        assertEquals(size, engine.getMessagePool().size());
+    }
+
+    @Test
+    void messageRecycling_disabledByDefault() {
+        DefaultMessageEngine engine = new DefaultMessageEngine(new Topology());
+
+        assertFalse(engine.isMessageRecyclingEnabled());
+        engine.enableMessageRecycling();
+        assertTrue(engine.isMessageRecyclingEnabled());
+        engine.disableMessageRecycling();
+        assertFalse(engine.isMessageRecyclingEnabled());
+    }
+
+    // endregion
+}
@@ -22,6 +22,10 @@ package io.jbotsim.core;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class NodeTest {
@@ -73,4 +77,157 @@ class NodeTest {
     }
 
     // endregion
+
+
+    // region getCommonLinkWith
+
+    @Test
+    void getCommonLinkWith_linkAdded_sameLinkFromBothEnds() {
+        Topology tp = new Topology();
+        tp.disableWireless();
+        Node n1 = new Node();
+        Node n2 = new Node();
+        tp.addNode(n1);
+        tp.addNode(n2);
+        Link link = new Link(n1, n2);
+        tp.addLink(link);
+
+        assertSame(link, n1.getCommonLinkWith(n2));
+        assertSame(link, n2.getCommonLinkWith(n1));
+    }
+
+    @Test
+    void getCommonLinkWith_reversedLinkRemoved_null() {
+        Topology tp = new Topology();
+        tp.disableWireless();
+        Node n1 = new Node();
+        Node n2 = new Node();
+        tp.addNode(n1);
+        tp.addNode(n2);
+        tp.addLink(new Link(n1, n2));
+
+        tp.removeLink(new Link(n2, n1));
+
+        assertNull(n1.getCommonLinkWith(n2));
+        assertNull(n2.getCommonLinkWith(n1));
+        assertTrue(tp.getLinks().isEmpty());
+    }
+
+    @Test
+    void getCommonLinkWith_oneArcRemoved_null() {
+        Topology tp = new Topology();
+        tp.disableWireless();
+        Node n1 = new Node();
+        Node n2 = new Node();
+        tp.addNode(n1);
+        tp.addNode(n2);
+        tp.addLink(new Link(n1, n2));
+
+        tp.removeLink(n1.getOutLinkTo(n2));
+
+        assertNull(n1.getCommonLinkWith(n2));
+        assertNotNull(n2.getOutLinkTo(n1));
+    }
+
+    // endregion
+
+
+    // region adjacent links
+
+    @Test
+    void getInLinks_directedLinks_onlyIncoming() {
+        Topology tp = new Topology();
+        tp.disableWireless();
+        Node n1 = new Node();
+        Node n2 = new Node();
+        Node n3 = new Node();
+        tp.addNode(n1);
+        tp.addNode(n2);
+        tp.addNode(n3);
+        Link in = new Link(n2, n1, Link.Orientation.DIRECTED);
+        tp.addLink(in);
+        tp.addLink(new Link(n1, n3, Link.Orientation.DIRECTED));
+
+        assertEquals(1, n1.getInLinks().size());
+        assertSame(in, n1.getInLinks().get(0));
+        assertEquals(2, n1.getLinks(Link.Orientation.DIRECTED).size());
+        assertTrue(n1.getLinks(Link.Orientation.UNDIRECTED).isEmpty());
+        assertEquals(n2, n1.getInNeighbors().get(0));
+    }
+
+    @Test
+    void getLinks_directedLoop_listedOnce() {
+        Topology tp = new Topology();
+        tp.disableWireless();
+        Node n1 = new Node();
+        tp.addNode(n1);
+        tp.addLink(new Link(n1, n1, Link.Orientation.DIRECTED));
+
+        assertEquals(1, n1.getLinks(Link.Orientation.DIRECTED).size());
+        assertEquals(1, n1.getInLinks().size());
+    }
+
+    @Test
+    void removeNode_linkedNode_inLinksOfNeighborsRemoved() {
+        Topology tp = new Topology();
+        tp.disableWireless();
+        Node n1 = new Node();
+        Node n2 = new Node();
+        tp.addNode(n1);
+        tp.addNode(n2);
+        tp.addLink(new Link(n1, n2));
+
+        tp.removeNode(n1);
+
+        assertTrue(n2.getInLinks().isEmpty());
+        assertTrue(n2.getNeighbors().isEmpty());
+        assertTrue(tp.getLinks(Link.Orientation.DIRECTED).isEmpty());
+    }
+
+    // endregion
+
+
+    // region non-copying accessors
+
+    @Test
+    void forEachNeighbor_linkedNodes_sameAsGetNeighbors() {
+        Topology tp = new Topology();
+        Node n1 = new Node();
+        tp.addNode(100, 100, n1);
+        tp.addNode(120, 100, new Node());
+        tp.addNode(100, 130, new Node());
+        tp.addNode(500, 500, new Node());
+
+        List<Node> visited = new ArrayList<>();
+        n1.forEachNeighbor(visited::add);
+
+        assertEquals(n1.getNeighbors(), visited);
+        assertEquals(n1.getNeighbors(), new ArrayList<>(n1.getNeighborsView()));
+    }
+
+    @Test
+    void getOutNeighborsView_linkAdded_viewUpdated() {
+        Topology tp = new Topology();
+        Node n1 = new Node();
+        Node n2 = new Node();
+        tp.addNode(100, 100, n1);
+        tp.addNode(500, 500, n2);
+        Collection<Node> view = n1.getOutNeighborsView();
+        assertTrue(view.isEmpty());
+
+        n2.setLocation(120, 100);
+
+        assertEquals(1, view.size());
+        assertTrue(view.contains(n2));
+        assertSame(view, n1.getOutNeighborsView());
+    }
+
+    @Test
+    void getSensedNodesView_modified_throws() {
+        Node n1 = new Node();
+
+        assertThrows(UnsupportedOperationException.class, () -> n1.getSensedNodesView().add(new Node()));
+    }
+
+    // endregion
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import io.jbotsim.core.event.ClockListener;
+import io.jbotsim.core.event.ConnectivityListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSchedulerTest {
+    private static final int NB_NODES = 400;
+    private static final int NB_ROUNDS = 30;
+    private static final List<ClockListener> NO_LISTENERS = Collections.emptyList();
+
+    @Test
+    void clockBased_randomWalk_sameEventsAsSequentialScheduler() {
+        List<String> sequentialEvents = runRandomWalk(new Scheduler(), Topology.RefreshMode.CLOCKBASED);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> parallelEvents = runRandomWalk(new ParallelScheduler(pool), Topology.RefreshMode.CLOCKBASED);
+
+            assertFalse(sequentialEvents.isEmpty());
+            assertEquals(sequentialEvents, parallelEvents);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void eventBased_randomWalk_sameEventsOnEachRun() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> firstEvents = runRandomWalk(new ParallelScheduler(pool), Topology.RefreshMode.EVENTBASED);
+            List<String> secondEvents = runRandomWalk(new ParallelScheduler(pool), Topology.RefreshMode.EVENTBASED);
+
+            assertFalse(firstEvents.isEmpty());
+            assertEquals(firstEvents, secondEvents);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void nodeRemovedDuringPhase_removedAtBarrier() {
+        Topology tp = new Topology();
+        tp.setScheduler(new ParallelScheduler());
+        Node n1 = new Node();
+        Node n2 = new Node() {
+            @Override
+            public void onClock() {
+                getTopology().removeNode(this);
+            }
+        };
+        tp.addNode(100, 100, n1);
+        tp.addNode(120, 100, n2);
+
+        tp.getScheduler().onClock(tp, NO_LISTENERS);
+
+        assertEquals(1, tp.getNodes().size());
+        assertNull(n2.getTopology());
+        assertTrue(tp.getLinks().isEmpty());
+    }
+
+    private static List<String> runRandomWalk(Scheduler scheduler, Topology.RefreshMode refreshMode) {
+        Topology tp = new Topology();
+        tp.setScheduler(scheduler);
+        tp.setRefreshMode(refreshMode);
+        List<String> events = new ArrayList<>();
+        tp.addConnectivityListener(new ConnectivityListener() {
+            @Override
+            public void onLinkAdded(Link link) {
+                events.add("+" + link);
+            }
+
+            @Override
+            public void onLinkRemoved(Link link) {
+                events.add("-" + link);
+            }
+        });
+        Random random = new Random(3);
+        for (int i = 0; i < NB_NODES; i++)
+            tp.addNode(random.nextDouble() * 1000, random.nextDouble() * 1000, new WalkingNode());
+        for (int round = 0; round < NB_ROUNDS; round++)
+            tp.getScheduler().onClock(tp, NO_LISTENERS);
+        for (Node node : tp.getNodes())
+            events.add(node.getID() + ":" + ((WalkingNode) node).received);
+        return events;
+    }
+
+    private static class WalkingNode extends Node {
+        private Random random;
+        int received = 0;
+
+        @Override
+        public void onMessage(Message message) {
+            received++;
+        }
+
+        @Override
+        public void onClock() {
+            if (random == null)
+                random = new Random(getID());
+            translate(random.nextGaussian() * 20, random.nextGaussian() * 20);
+            if (random.nextInt(4) == 0)
+                sendAll(new Message(getID()));
+        }
+    }
+}
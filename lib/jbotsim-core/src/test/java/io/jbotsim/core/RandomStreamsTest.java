@@ -0,0 +1,109 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomStreamsTest {
+    private static final long SEED = 42;
+
+    @Test
+    void addNode_sameSeed_sameLocations() {
+        Topology topology = new Topology();
+        Topology other = new Topology();
+        topology.setSeed(SEED);
+        other.setSeed(SEED);
+
+        for (int i = 0; i < 10; i++) {
+            Node node = new Node();
+            Node otherNode = new Node();
+            topology.addNode(-1, -1, node);
+            other.addNode(-1, -1, otherNode);
+            assertEquals(node.getLocation(), otherNode.getLocation());
+        }
+    }
+
+    @Test
+    void getRandom_sameNameSameStream_independentOfCreationOrder() {
+        Topology topology = new Topology();
+        Topology other = new Topology();
+        topology.setSeed(SEED);
+        other.setSeed(SEED);
+
+        long first = topology.getRandom("first").nextLong();
+        long second = topology.getRandom("second").nextLong();
+
+        assertEquals(second, other.getRandom("second").nextLong());
+        assertEquals(first, other.getRandom("first").nextLong());
+        assertSame(topology.getRandom("first"), topology.getRandom("first"));
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void nodeRandom_derivedFromSeedAndID() {
+        Topology topology = new Topology();
+        topology.setSeed(SEED);
+        Node node = new Node();
+        Node otherNode = new Node();
+        topology.addNode(10, 10, node);
+        topology.addNode(20, 20, otherNode);
+
+        long value = node.getRandom().nextLong();
+        assertNotEquals(value, otherNode.getRandom().nextLong());
+        assertSame(node.getRandom(), node.getRandom());
+
+        topology.setSeed(SEED);
+        assertEquals(value, node.getRandom().nextLong());
+    }
+
+    @Test
+    void setSeed_differentSeeds_differentStreams() {
+        Topology topology = new Topology();
+        topology.setSeed(SEED);
+        long value = topology.getRandom("stream").nextLong();
+
+        topology.setSeed(SEED + 1);
+
+        assertEquals(SEED + 1, topology.getSeed());
+        assertNotEquals(value, topology.getRandom("stream").nextLong());
+    }
+
+    @Test
+    void shuffleNodeIds_sameSeed_sameIds() {
+        Topology topology = new Topology();
+        Topology other = new Topology();
+        topology.setSeed(SEED);
+        other.setSeed(SEED);
+        for (int i = 0; i < 20; i++) {
+            topology.addNode(new Node());
+            other.addNode(new Node());
+        }
+
+        topology.shuffleNodeIds();
+        other.shuffleNodeIds();
+
+        for (int i = 0; i < 20; i++)
+            assertEquals(topology.getNodes().get(i).getID(), other.getNodes().get(i).getID());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import io.jbotsim.core.event.RoundMetricsListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoundMetricsTest {
+
+    private Topology topology;
+    private List<String> rounds;
+    private RoundMetricsListener listener;
+
+    @BeforeEach
+    void setUp() {
+        topology = new Topology();
+        rounds = new ArrayList<>();
+        listener = metrics -> rounds.add(metrics.getRound() + ":" + metrics.getNbTouchedNodes() + ":"
+                + metrics.getNbAddedArcs() + ":" + metrics.getNbRemovedArcs() + ":"
+                + metrics.getNbDeliveredMessages());
+    }
+
+    @Test
+    void noListener_notProfiled() {
+        topology.runRounds(2);
+
+        assertNull(topology.roundMetrics);
+    }
+
+    @Test
+    void listener_notifiedOncePerRound() {
+        topology.addRoundMetricsListener(listener);
+        topology.runRounds(3);
+
+        assertEquals(3, rounds.size());
+
+        topology.removeRoundMetricsListener(listener);
+        topology.runRounds(1);
+
+        assertEquals(3, rounds.size());
+        assertNull(topology.roundMetrics);
+    }
+
+    @Test
+    void counts_touchedNodesLinksAndMessages() {
+        Node sender = new Node();
+        Node receiver = new Node();
+        boolean[] move = new boolean[1];
+        topology.addNode(100, 100, sender);
+        topology.addNode(120, 100, receiver);
+        topology.addNode(1000, 1000, new Node() {
+            @Override
+            public void onClock() {
+                if (move[0])
+                    setLocation(100, 120);
+            }
+        });
+        topology.addRoundMetricsListener(listener);
+        topology.runRounds(1);
+
+        sender.send(receiver, new Message());
+        move[0] = true;
+        topology.runRounds(1);
+
+        String[] last = rounds.get(rounds.size() - 1).split(":");
+        assertEquals("1", last[1]);
+        assertEquals("4", last[2]);
+        assertEquals("0", last[3]);
+        assertEquals("1", last[4]);
+    }
+
+    @Test
+    void durations_sumBelowTotal() {
+        for (int i = 0; i < 10; i++)
+            topology.addNode(new Node());
+        long[] sums = new long[2];
+        topology.addRoundMetricsListener(metrics -> {
+            for (RoundMetrics.Phase phase : RoundMetrics.Phase.values()) {
+                assertTrue(metrics.getDuration(phase) >= 0);
+                sums[0] += metrics.getDuration(phase);
+            }
+            sums[1] += metrics.getTotalDuration();
+        });
+        topology.runRounds(5);
+
+        assertTrue(sums[0] <= sums[1]);
+        assertTrue(sums[1] > 0);
+    }
+}
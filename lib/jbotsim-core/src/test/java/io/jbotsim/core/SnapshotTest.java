@@ -0,0 +1,119 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+
+    private Topology topology;
+    private Node n1;
+    private Node n2;
+
+    @BeforeEach
+    void setUp() {
+        topology = new Topology();
+        n1 = new Node();
+        n2 = new Node();
+        topology.addNode(100, 100, n1);
+        topology.addNode(120, 100, n2);
+    }
+
+    @Test
+    void getNodesSnapshot_noChange_sameInstance() {
+        List<Node> snapshot = topology.getNodesSnapshot();
+
+        n1.translate(5, 0);
+
+        assertSame(snapshot, topology.getNodesSnapshot());
+        assertEquals(topology.getNodes(), snapshot);
+    }
+
+    @Test
+    void getNodesSnapshot_nodeRemoved_oldSnapshotUnchanged() {
+        List<Node> snapshot = topology.getNodesSnapshot();
+
+        topology.removeNode(n1);
+
+        assertEquals(2, snapshot.size());
+        assertEquals(1, topology.getNodesSnapshot().size());
+        assertSame(n2, topology.getNodesSnapshot().get(0));
+    }
+
+    @Test
+    void getNodesSnapshot_modified_throws() {
+        assertThrows(UnsupportedOperationException.class, () -> topology.getNodesSnapshot().clear());
+    }
+
+    @Test
+    void getLinksSnapshot_linkRemoved_rebuilt() {
+        List<Link> directed = topology.getLinksSnapshot(Link.Orientation.DIRECTED);
+        List<Link> undirected = topology.getLinksSnapshot();
+        assertEquals(2, directed.size());
+        assertEquals(1, undirected.size());
+
+        n2.setLocation(1000, 1000);
+
+        assertEquals(2, directed.size());
+        assertTrue(topology.getLinksSnapshot(Link.Orientation.DIRECTED).isEmpty());
+        assertTrue(topology.getLinksSnapshot().isEmpty());
+    }
+
+    @Test
+    void getLinks_linksChangedByAnotherThread_noException() throws InterruptedException {
+        topology.disableWireless();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Node node = new Node();
+            topology.addNode(i, i, node);
+            nodes.add(node);
+            if (i % 2 == 0)
+                topology.addLink(new Link(node, nodes.get(0)));
+        }
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        Thread writer = new Thread(() -> {
+            while (!stopped.get())
+                for (int i = 1; i < nodes.size(); i++) {
+                    Link link = new Link(nodes.get(i - 1), nodes.get(i));
+                    topology.addLink(link);
+                    topology.removeLink(link);
+                }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                topology.getLinks();
+                topology.getLinks(Link.Orientation.DIRECTED);
+            }
+        } finally {
+            stopped.set(true);
+            writer.join();
+        }
+    }
+}
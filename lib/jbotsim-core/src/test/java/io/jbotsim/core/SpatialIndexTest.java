@@ -0,0 +1,179 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>These tests check that the links and sensed nodes computed with the {@link SpatialIndex} match the ones computed
+ * by checking every pair of nodes.</p>
+ */
+class SpatialIndexTest {
+    private static final int NB_NODES = 200;
+    private static final int NB_ROUNDS = 50;
+    private static final double AREA_SIZE = 1500;
+
+    private Topology indexed;
+    private Topology bruteForce;
+
+    private void createTopologies(Topology.RefreshMode refreshMode) {
+        indexed = new Topology();
+        bruteForce = new Topology();
+        bruteForce.disableSpatialIndex();
+        for (Topology tp : Arrays.asList(indexed, bruteForce)) {
+            tp.setRefreshMode(refreshMode);
+            tp.setSensingRange(40);
+        }
+    }
+
+    private void addRandomNodes(Random random) {
+        for (int i = 0; i < NB_NODES; i++) {
+            double x = random.nextDouble() * AREA_SIZE;
+            double y = random.nextDouble() * AREA_SIZE;
+            indexed.addNode(x, y, new SensingNode());
+            bruteForce.addNode(x, y, new SensingNode());
+        }
+    }
+
+    private void moveRandomNodes(Random random) {
+        for (int i = 0; i < NB_NODES; i++) {
+            if (random.nextInt(3) != 0)
+                continue;
+            double dx = random.nextGaussian() * 50;
+            double dy = random.nextGaussian() * 50;
+            indexed.getNodes().get(i).translate(dx, dy);
+            bruteForce.getNodes().get(i).translate(dx, dy);
+            if (random.nextInt(100) == 0) {
+                double range = 50 + random.nextInt(150);
+                indexed.getNodes().get(i).setCommunicationRange(range);
+                bruteForce.getNodes().get(i).setCommunicationRange(range);
+            }
+        }
+    }
+
+    private void runAndCompare(Topology.RefreshMode refreshMode) {
+        Random random = new Random(42);
+        createTopologies(refreshMode);
+        addRandomNodes(random);
+        for (int round = 0; round < NB_ROUNDS; round++) {
+            moveRandomNodes(random);
+            indexed.onClock();
+            bruteForce.onClock();
+            checkSameConnectivity();
+        }
+    }
+
+    private static Set<String> describeLinks(Topology tp, Link.Orientation orientation) {
+        Set<String> result = new TreeSet<>();
+        for (Link l : tp.getLinks(orientation))
+            result.add(l.toString());
+        return result;
+    }
+
+    private void checkSameConnectivity() {
+        assertEquals(describeLinks(bruteForce, Link.Orientation.DIRECTED),
+                describeLinks(indexed, Link.Orientation.DIRECTED));
+        assertEquals(describeLinks(bruteForce, Link.Orientation.UNDIRECTED),
+                describeLinks(indexed, Link.Orientation.UNDIRECTED));
+        for (int i = 0; i < NB_NODES; i++) {
+            SensingNode expected = (SensingNode) bruteForce.getNodes().get(i);
+            SensingNode actual = (SensingNode) indexed.getNodes().get(i);
+            assertEquals(expected.sensingIn, actual.sensingIn);
+            assertEquals(expected.sensingOut, actual.sensingOut);
+        }
+    }
+
+    @Test
+    void eventBased_randomMoves_sameConnectivityAsBruteForce() {
+        runAndCompare(Topology.RefreshMode.EVENTBASED);
+    }
+
+    @Test
+    void clockBased_randomMoves_sameConnectivityAsBruteForce() {
+        runAndCompare(Topology.RefreshMode.CLOCKBASED);
+    }
+
+    @Test
+    void farMove_oldLinksRemoved() {
+        Topology tp = new Topology();
+        Node n1 = new Node();
+        Node n2 = new Node();
+        tp.addNode(10, 10, n1);
+        tp.addNode(50, 10, n2);
+        assertNotNull(tp.getLink(n1, n2));
+
+        n2.setLocation(5000, 5000);
+
+        assertNull(tp.getLink(n1, n2));
+        assertTrue(tp.getLinks().isEmpty());
+    }
+
+    @Test
+    void unboundedLinkResolver_farNodesLinked() {
+        Topology tp = new Topology();
+        tp.setLinkResolver(new LinkResolver() {
+            @Override
+            public boolean isHeardBy(Node n1, Node n2) {
+                return true;
+            }
+        });
+        Node n1 = new Node();
+        Node n2 = new Node();
+        tp.addNode(10, 10, n1);
+        tp.addNode(5000, 5000, n2);
+
+        assertNotNull(tp.getLink(n1, n2));
+    }
+
+    @Test
+    void largeSensingRange_farNodesSensed() {
+        Topology tp = new Topology();
+        SensingNode n1 = new SensingNode();
+        Node n2 = new Node();
+        tp.addNode(10, 10, n1);
+        tp.addNode(400, 10, n2);
+        n1.setSensingRange(1000);
+
+        n2.translate(1, 0);
+
+        assertEquals(1, n1.sensingIn);
+    }
+
+    public static class SensingNode extends Node {
+        int sensingIn = 0;
+        int sensingOut = 0;
+
+        @Override
+        public void onSensingIn(Node node) {
+            sensingIn++;
+        }
+
+        @Override
+        public void onSensingOut(Node node) {
+            sensingOut++;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SynchronousRunTest {
+
+    private Topology topology;
+    private CountingNode node;
+
+    @BeforeEach
+    void setUp() {
+        topology = new Topology();
+        node = new CountingNode();
+        topology.addNode(100, 100, node);
+    }
+
+    @Test
+    void runRounds_notStarted_nodesStartedOnce() {
+        topology.runRounds(3);
+        topology.runRounds(2);
+
+        assertEquals(1, node.nbStarts);
+        assertEquals(5, node.nbClocks);
+        assertTrue(topology.isStarted());
+        assertFalse(topology.isRunning());
+    }
+
+    @Test
+    void runRounds_timeMatchesRounds() {
+        topology.runRounds(10);
+
+        assertEquals(9, topology.getTime());
+        assertEquals(9, node.lastTime);
+    }
+
+    @Test
+    void runUntil_conditionReached_numberOfRoundsReturned() {
+        int nbRounds = topology.runUntil(tp -> node.nbClocks == 7);
+
+        assertEquals(7, nbRounds);
+        assertEquals(7, node.nbClocks);
+    }
+
+    @Test
+    void runUntil_conditionAlreadyHolds_noRound() {
+        assertEquals(0, topology.runUntil(tp -> true));
+        assertEquals(0, node.nbClocks);
+    }
+
+    @Test
+    void runRounds_messageSent_deliveredNextRound() {
+        CountingNode receiver = new CountingNode();
+        topology.addNode(120, 100, receiver);
+        node.sendOnFirstRound = true;
+
+        topology.runRounds(2);
+
+        assertEquals(1, receiver.nbMessages);
+    }
+
+    private static class CountingNode extends Node {
+        int nbStarts = 0;
+        int nbClocks = 0;
+        int nbMessages = 0;
+        int lastTime = -1;
+        boolean sendOnFirstRound = false;
+
+        @Override
+        public void onStart() {
+            nbStarts++;
+        }
+
+        @Override
+        public void onClock() {
+            if (sendOnFirstRound && nbClocks == 0)
+                sendAll(new Message());
+            nbClocks++;
+            lastTime = getTime();
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            nbMessages++;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.core;
+
+import io.jbotsim.core.event.ClockListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    private final TimerWheel wheel = new TimerWheel();
+    private final List<ClockListener> expired = new ArrayList<>();
+
+    @Test
+    void tick_periodsAroundWheelSize_firedOnEachPeriod() {
+        int[] periods = {1, 3, TimerWheel.WHEEL_SIZE - 1, TimerWheel.WHEEL_SIZE, TimerWheel.WHEEL_SIZE + 1, 1000};
+        ClockListener[] listeners = new ClockListener[periods.length];
+        for (int i = 0; i < periods.length; i++) {
+            listeners[i] = new EmptyListener();
+            wheel.add(listeners[i], periods[i]);
+        }
+
+        for (int t = 1; t <= 5000; t++) {
+            expired.clear();
+            wheel.tick(expired);
+            for (int i = 0; i < periods.length; i++)
+                assertEquals(t % periods[i] == 0, expired.contains(listeners[i]), "period " + periods[i] + " at " + t);
+        }
+    }
+
+    @Test
+    void tick_samePeriod_registrationOrder() {
+        ClockListener l1 = () -> { };
+        ClockListener l2 = () -> { };
+        ClockListener l3 = () -> { };
+        wheel.add(l1, 2);
+        wheel.add(l2, 2);
+        wheel.add(l3, 2);
+
+        for (int t = 1; t <= 10; t++) {
+            expired.clear();
+            wheel.tick(expired);
+        }
+
+        assertEquals(Arrays.asList(l1, l2, l3), expired);
+    }
+
+    @Test
+    void remove_listenerNoLongerFired() {
+        ClockListener l1 = () -> { };
+        ClockListener l2 = () -> { };
+        wheel.add(l1, 1);
+        wheel.add(l2, 1);
+
+        wheel.remove(l1);
+        wheel.tick(expired);
+
+        assertEquals(Arrays.asList(l2), expired);
+    }
+
+    @Test
+    void add_alreadyScheduled_countdownReset() {
+        ClockListener listener = () -> { };
+        wheel.add(listener, 3);
+        wheel.tick(expired);
+        wheel.tick(expired);
+
+        wheel.add(listener, 3);
+        wheel.tick(expired);
+        wheel.tick(expired);
+        assertTrue(expired.isEmpty());
+
+        wheel.tick(expired);
+        assertEquals(Arrays.asList(listener), expired);
+    }
+
+    @Test
+    void skip_toNextExpiration_listenerFired() {
+        ClockListener listener = () -> { };
+        wheel.add(listener, 1000);
+        assertEquals(1000, wheel.getTicksToNextExpiration());
+
+        wheel.skip(999);
+        assertEquals(1, wheel.getTicksToNextExpiration());
+        wheel.tick(expired);
+
+        assertEquals(Arrays.asList(listener), expired);
+        assertEquals(1000, wheel.getTicksToNextExpiration());
+    }
+
+    @Test
+    void getTicksToNextExpiration_noListener_maxValue() {
+        wheel.add(() -> { }, 0);
+
+        assertEquals(Long.MAX_VALUE, wheel.getTicksToNextExpiration());
+    }
+
+    private static class EmptyListener implements ClockListener {
+        @Override
+        public void onClock() {
+        }
+    }
+}
@@ -133,7 +133,7 @@ public class Connectivity {
         double Sr=tp.getSensingRange();
         int size = getOptimalTopologySize(nbNodes, Cr, 100);
         int bordure = new Double(4*Sr).intValue();
-        Random rand = new Random();
+        SplittableRandom rand = tp.getRandom(Connectivity.class.getName());
         Topology tmp=new Topology();
         tp.pause();
         do{
@@ -146,11 +146,15 @@ public class Connectivity {
         tp.resume();
     }
     public static Topology createTopology(int nbNodes, double cRange, double sRange, double ratio){
+        return createTopology(nbNodes, cRange, sRange, ratio, new SplittableRandom().nextLong());
+    }
+    public static Topology createTopology(int nbNodes, double cRange, double sRange, double ratio, long seed){
     int size = getOptimalTopologySize(nbNodes, cRange, ratio);
     int bordure = new Double(4*sRange).intValue();
     int attempts = 0;
-    Random rand = new Random();
     Topology topo = new Topology();
+    topo.setSeed(seed);
+    SplittableRandom rand = topo.getRandom(Connectivity.class.getName());
     topo.setSensingRange(sRange);
     topo.setCommunicationRange(cRange);
     do{ attempts++;
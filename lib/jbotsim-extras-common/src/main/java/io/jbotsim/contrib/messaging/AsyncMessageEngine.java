@@ -22,10 +22,11 @@ package io.jbotsim.contrib.messaging;
 
 import io.jbotsim.core.*;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * <p>The {@link AsyncMessageEngine} is an asynchronous alternative to JBotSim's default {@link MessageEngine}.</p>
@@ -39,7 +40,10 @@ import java.util.Random;
  * <p>In both cases, the <code>f</code> function used to draw the random delay, which follows an exponential
  * distribution law of rate <code>1./{@link #getAverageDuration()}</code>, is computed as such:<br>
  * <code>f(r) = -log(1-r) * {@link AsyncMessageEngine#getAverageDuration()}</code>, where <code>r</code> is a value
- * returned by {@link Math#random()}.</p>
+ * drawn from the random stream of the {@link Topology} (see {@link Topology#getRandom(String)}), unless the engine
+ * is given its own seed with {@link #setSeed(long)}.</p>
+ * <p>In the {@link Type#FIFO} mode, the maximum delivery date of each arc is kept in a table indexed by its
+ * endpoints, compared by identity. The dates which have passed are ignored, and only purged when the table grows.</p>
  */
 public class AsyncMessageEngine extends DelayMessageEngine {
 
@@ -53,9 +57,9 @@ public class AsyncMessageEngine extends DelayMessageEngine {
      */
     public static final Type DEFAULT_TYPE = Type.FIFO;
 
-    private Random random = new Random();
+    private SplittableRandom random = null;
 
-    private MaximumDeliveryDatesTracker maximumDeliveryDates = new MaximumDeliveryDatesTracker();
+    private final MaximumDeliveryDatesTracker maximumDeliveryDates = new MaximumDeliveryDatesTracker();
 
     /**
      * Delivery queue type.
@@ -94,17 +98,26 @@ public class AsyncMessageEngine extends DelayMessageEngine {
         this.type = type;
     }
 
-    @Override
-    public void onClock() {
-        super.onClock();
-
-        if(shouldCleanDeliveryDates())
-            maximumDeliveryDates.clearUpTo(currentTime);
+    /**
+     * <p>Tests whether the maximum delivery dates which have passed should be ignored and purged.</p>
+     * @return <code>true</code> by default.
+     */
+    protected boolean shouldCleanDeliveryDates() {
+        return true;
+    }
 
+    /**
+     * <p>Seeds the random generator used to draw the delays independently of the seed of the {@link Topology}.</p>
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
     }
 
-    protected boolean shouldCleanDeliveryDates() {
-        return true;
+    private SplittableRandom getRandom() {
+        if (random == null)
+            random = topology.getRandom(AsyncMessageEngine.class.getName());
+        return random;
     }
 
     @Override
@@ -159,7 +172,10 @@ public class AsyncMessageEngine extends DelayMessageEngine {
      * @return the current maximum delivery date (round number), as an integer.
      */
     protected int getCurrentMaximumDeliveryDate(Node sender, Node destination) {
-        return maximumDeliveryDates.get(sender, destination);
+        int deliveryDate = maximumDeliveryDates.get(sender, destination);
+        if (shouldCleanDeliveryDates() && deliveryDate <= currentTime - 1)
+            return MaximumDeliveryDatesTracker.DEFAULT_VALUE;
+        return deliveryDate;
     }
 
     @Override
@@ -208,7 +224,7 @@ public class AsyncMessageEngine extends DelayMessageEngine {
      * @return the next value for the delay function, as an integer.
      */
     protected int computeDelayFunction(int lambda) {
-        return (int) Math.round(Math.log(1 - random.nextDouble()) / (-1.0 / lambda));
+        return (int) Math.round(-Math.log(1 - getRandom().nextDouble()) * lambda);
     }
 
     /**
@@ -251,11 +267,25 @@ public class AsyncMessageEngine extends DelayMessageEngine {
         return getAverageDuration();
     }
 
+    @Override
+    public void reset() {
+        super.reset();
+        maximumDeliveryDates.clear();
+    }
+
+    /**
+     * An open-addressing table of the maximum delivery dates, indexed by the sender and the destination. The nodes are
+     * compared by identity, since their identifiers may change or be shared.
+     */
     private class MaximumDeliveryDatesTracker {
         public static final int DEFAULT_VALUE = -1;
 
-        // senderNode -> (destinationNode -> maximumDeliveryDate)
-        private Map<Node, Map<Node, Integer>> maximumDeliveryDates = new HashMap<>();
+        private static final int INITIAL_CAPACITY = 64;
+
+        private Node[] senders = new Node[INITIAL_CAPACITY];
+        private Node[] destinations = new Node[INITIAL_CAPACITY];
+        private int[] deliveryDates = new int[INITIAL_CAPACITY];
+        private int size = 0;
 
         /**
          * <p>Fetches the current maximum delivery date of a message from sender to destination.</p>
@@ -266,69 +296,81 @@ public class AsyncMessageEngine extends DelayMessageEngine {
          *  If not present: {@link #DEFAULT_VALUE}.
          */
         public int get(Node sender, Node destination) {
-
-            Map<Node, Integer> destinationsMap = getDestinationsFor(sender, maximumDeliveryDates);
-            if (destinationsMap.isEmpty())
+            int index = indexOf(senders, destinations, sender, destination);
+            if (senders[index] == null)
                 return DEFAULT_VALUE;
-
-            Integer value = getValueForDestination(destination, destinationsMap);
-            if (value == null)
-                return DEFAULT_VALUE;
-
-            return value;
-        }
-
-        private Integer getValueForDestination(Node destination, Map<Node, Integer> destinationsMap) {
-            return destinationsMap.get(destination);
-        }
-
-        private Map<Node, Integer> getDestinationsFor(Node sender, Map<Node, Map<Node, Integer>> maximumDeliveryDates) {
-            Map<Node, Integer> destinationsMap = maximumDeliveryDates.get(sender);
-            if(destinationsMap == null) {
-                destinationsMap = new HashMap<>();
-                maximumDeliveryDates.put(sender, destinationsMap);
-            }
-            return destinationsMap;
+            return deliveryDates[index];
         }
 
         /**
          * <p>Puts the new maximum delivery date of a message from sender to destination, without checking consistency
-         * with the previous value.</p
+         * with the previous value.</p>
          * @param sender the sender {@link Node}
          * @param destination the destination {@link Node}
          * @param deliveryDate the new maximum delivery date, as an integer.
          */
         public void put(Node sender, Node destination, int deliveryDate) {
-            put(sender, destination, deliveryDate, maximumDeliveryDates);
+            int index = indexOf(senders, destinations, sender, destination);
+            if (senders[index] == null) {
+                if (2 * (size + 1) > senders.length) {
+                    rehash();
+                    index = indexOf(senders, destinations, sender, destination);
+                }
+                senders[index] = sender;
+                destinations[index] = destination;
+                size++;
+            }
+            deliveryDates[index] = deliveryDate;
         }
-        private void put(Node sender, Node destination, int deliveryDate, Map<Node, Map<Node, Integer>> maximumDeliveryDates) {
-            Map<Node, Integer> destinationsMap = getDestinationsFor(sender, maximumDeliveryDates);
-            destinationsMap.put(destination, deliveryDate);
+
+        /**
+         * <p>Removes every record.</p>
+         */
+        public void clear() {
+            Arrays.fill(senders, null);
+            Arrays.fill(destinations, null);
+            size = 0;
         }
 
         /**
-         * <p>Clears existing records of delivery dates which predates the provided date. </p>
-         * @param date the date of the first delivery date to keep.
+         * <p>Drops the records of delivery dates which have passed, if they should be cleaned, and doubles the
+         * capacity of the table if it is still more than a quarter full.</p>
          */
-        public void clearUpTo(int date) {
-            Map<Node, Map<Node, Integer>> newDeliveryDates = new HashMap<>();
-
-            for (Map.Entry<Node, Map<Node, Integer>> nodeIntegerMap : maximumDeliveryDates.entrySet()) {
-                Node sender = nodeIntegerMap.getKey();
-                for (Map.Entry<Node, Integer> nodeIntegerEntry : nodeIntegerMap.getValue().entrySet()) {
-                    int currentMax = nodeIntegerEntry.getValue();
-                    if(stillValid(currentMax, date)) {
-                        Node destination = nodeIntegerEntry.getKey();
-                        put(sender, destination, currentMax, newDeliveryDates);
-                    }
-                }
+        private void rehash() {
+            Node[] previousSenders = senders;
+            Node[] previousDestinations = destinations;
+            int[] previousDates = deliveryDates;
+            boolean clean = shouldCleanDeliveryDates();
+            int nbKept = 0;
+            for (int i = 0; i < previousSenders.length; i++)
+                if (previousSenders[i] != null && (!clean || previousDates[i] > currentTime - 1))
+                    nbKept++;
+
+            int capacity = previousSenders.length;
+            if (4 * (nbKept + 1) > capacity)
+                capacity *= 2;
+            senders = new Node[capacity];
+            destinations = new Node[capacity];
+            deliveryDates = new int[capacity];
+            for (int i = 0; i < previousSenders.length; i++) {
+                if (previousSenders[i] == null || (clean && previousDates[i] <= currentTime - 1))
+                    continue;
+                int index = indexOf(senders, destinations, previousSenders[i], previousDestinations[i]);
+                senders[index] = previousSenders[i];
+                destinations[index] = previousDestinations[i];
+                deliveryDates[index] = previousDates[i];
             }
-
-            maximumDeliveryDates = newDeliveryDates;
+            size = nbKept;
         }
 
-        private boolean stillValid(int currentMax, int value) {
-            return currentMax > value;
+        private int indexOf(Node[] senderTable, Node[] destinationTable, Node sender, Node destination) {
+            int mask = senderTable.length - 1;
+            int hash = (31 * System.identityHashCode(sender) + System.identityHashCode(destination)) * 0x9E3779B9;
+            int index = (hash ^ (hash >>> 16)) & mask;
+            while (senderTable[index] != null
+                    && (senderTable[index] != sender || destinationTable[index] != destination))
+                index = (index + 1) & mask;
+            return index;
         }
     }
 }
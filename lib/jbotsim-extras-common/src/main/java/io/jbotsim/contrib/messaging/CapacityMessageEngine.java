@@ -0,0 +1,405 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.contrib.messaging;
+
+import io.jbotsim.core.*;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * <p>The {@link CapacityMessageEngine} is an alternative to JBotSim's default {@link MessageEngine}, which models the
+ * capacity of the {@link Link Links}.</p>
+ *
+ * <p>Each arc has a bounded FIFO queue, in which the {@link Message Messages} sent on this arc wait to be delivered.
+ * Each round, an arc delivers the {@link Message Messages} at the head of its queue within its budget:</p>
+ * <ul>
+ *     <li>the budget of an arc is read from the {@link #CAPACITY_PROPERTY} property of the arc (or else of the
+ *     corresponding undirected {@link Link}), and defaults to {@link #getDefaultCapacity()};</li>
+ *     <li>the size of a {@link Message} is given by {@link #setMessageSizeFunction(ToIntFunction)}, and is
+ *     <code>1</code> by default, so that the budget is a number of messages per round; using a size in bytes makes it
+ *     a number of bytes per round;</li>
+ *     <li>an unused budget is lost, unless the {@link Message} at the head of the queue is bigger than the budget: it
+ *     is then delivered once the arc has accumulated enough budget.</li>
+ * </ul>
+ *
+ * <p>The length of the queue of an arc is read from its {@link #QUEUE_LENGTH_PROPERTY} property in the same way, and
+ * defaults to {@link #getDefaultQueueLength()}. When a {@link Message} is sent on an arc whose queue is full, the
+ * {@link OverflowPolicy} applies.</p>
+ *
+ * <p>As with the {@link DefaultMessageEngine}, {@link Message Messages} sent during round <em>n</em> are enqueued at
+ * the beginning of round <em>n+1</em>, and {@link Message Messages} whose arc disappears are dropped (or re-queued in
+ * their sender's send queue, if sent with {@link Node#sendRetry(Node, Message)}).</p>
+ */
+public class CapacityMessageEngine extends DefaultMessageEngine {
+
+    /**
+     * The name of the {@link Link} property holding the budget of the link, per round; value:
+     * {@value #CAPACITY_PROPERTY}.
+     */
+    public static final String CAPACITY_PROPERTY = "capacity";
+
+    /**
+     * The name of the {@link Link} property holding the maximum number of {@link Message Messages} waiting on the
+     * link; value: {@value #QUEUE_LENGTH_PROPERTY}.
+     */
+    public static final String QUEUE_LENGTH_PROPERTY = "queueLength";
+
+    /**
+     * The default budget of a {@link Link}, per round; value: {@value #DEFAULT_CAPACITY}.
+     */
+    public static final int DEFAULT_CAPACITY = 1;
+
+    /**
+     * The default maximum number of {@link Message Messages} waiting on a {@link Link}; value:
+     * {@value #DEFAULT_QUEUE_LENGTH}.
+     */
+    public static final int DEFAULT_QUEUE_LENGTH = 16;
+
+    /**
+     * The default {@link OverflowPolicy}; value: {@link OverflowPolicy#TAIL_DROP}.
+     */
+    public static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.TAIL_DROP;
+
+    /**
+     * Behavior when a {@link Message} is sent on a {@link Link} whose queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The {@link Message} is dropped, unless it has been sent in retry mode: it then stays in its sender's send
+         * queue.
+         */
+        TAIL_DROP,
+        /**
+         * The {@link Message} stays in its sender's send queue until there is room on the {@link Link}.
+         */
+        BACKPRESSURE
+    }
+
+    private final Map<Link, LinkQueue> queues = new LinkedHashMap<>();
+    private int defaultCapacity = DEFAULT_CAPACITY;
+    private int defaultQueueLength = DEFAULT_QUEUE_LENGTH;
+    private OverflowPolicy overflowPolicy = DEFAULT_OVERFLOW_POLICY;
+    private ToIntFunction<Message> messageSizeFunction = message -> 1;
+
+    private long nbDroppedMessages = 0;
+    private long nbBlockedMessages = 0;
+    private long nbDeliveredMessages = 0;
+    private int nbQueuedMessages = 0;
+
+    /**
+     * <p>Creates a {@link CapacityMessageEngine}, using the default capacity, queue length and overflow policy.</p>
+     *
+     * @param topology the {@link Topology} to use.
+     */
+    public CapacityMessageEngine(Topology topology) {
+        super(topology);
+    }
+
+    /**
+     * <p>Creates a {@link CapacityMessageEngine}.</p>
+     *
+     * @param topology the {@link Topology} to use.
+     * @param defaultCapacity the budget of the {@link Link Links} which have no {@link #CAPACITY_PROPERTY} property.
+     * @param defaultQueueLength the queue length of the {@link Link Links} which have no
+     *                           {@link #QUEUE_LENGTH_PROPERTY} property.
+     * @param overflowPolicy the {@link OverflowPolicy} to apply when a queue is full.
+     */
+    public CapacityMessageEngine(Topology topology, int defaultCapacity, int defaultQueueLength,
+                                 OverflowPolicy overflowPolicy) {
+        super(topology);
+        setDefaultCapacity(defaultCapacity);
+        setDefaultQueueLength(defaultQueueLength);
+        setOverflowPolicy(overflowPolicy);
+    }
+
+    // region configuration
+
+    /**
+     * <p>Gets the budget of the {@link Link Links} which have no {@link #CAPACITY_PROPERTY} property.</p>
+     * @return the default budget, per round.
+     */
+    public int getDefaultCapacity() {
+        return defaultCapacity;
+    }
+
+    /**
+     * <p>Sets the budget of the {@link Link Links} which have no {@link #CAPACITY_PROPERTY} property.</p>
+     * @param defaultCapacity the default budget, per round; must be positive.
+     */
+    public void setDefaultCapacity(int defaultCapacity) {
+        assert (defaultCapacity > 0);
+        this.defaultCapacity = defaultCapacity;
+    }
+
+    /**
+     * <p>Gets the queue length of the {@link Link Links} which have no {@link #QUEUE_LENGTH_PROPERTY} property.</p>
+     * @return the default queue length.
+     */
+    public int getDefaultQueueLength() {
+        return defaultQueueLength;
+    }
+
+    /**
+     * <p>Sets the queue length of the {@link Link Links} which have no {@link #QUEUE_LENGTH_PROPERTY} property.</p>
+     * @param defaultQueueLength the default queue length; must be positive.
+     */
+    public void setDefaultQueueLength(int defaultQueueLength) {
+        assert (defaultQueueLength > 0);
+        this.defaultQueueLength = defaultQueueLength;
+    }
+
+    /**
+     * <p>Gets the {@link OverflowPolicy} applied when a queue is full.</p>
+     * @return the current {@link OverflowPolicy}.
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * <p>Sets the {@link OverflowPolicy} applied when a queue is full.</p>
+     * @param overflowPolicy the new {@link OverflowPolicy}.
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * <p>Sets the function giving the size of a {@link Message}, in the same unit as the budget of the
+     * {@link Link Links}.</p>
+     * @param messageSizeFunction the function giving the size of a {@link Message}.
+     */
+    public void setMessageSizeFunction(ToIntFunction<Message> messageSizeFunction) {
+        this.messageSizeFunction = messageSizeFunction;
+    }
+
+    // endregion
+
+    // region statistics
+
+    /**
+     * <p>Gets the number of {@link Message Messages} dropped because the queue of their {@link Link} was full.</p>
+     * @return the number of dropped messages.
+     */
+    public long getNbDroppedMessages() {
+        return nbDroppedMessages;
+    }
+
+    /**
+     * <p>Gets the number of times a {@link Message} has been kept in its sender's send queue because the queue of its
+     * {@link Link} was full.</p>
+     * @return the number of blocked messages.
+     */
+    public long getNbBlockedMessages() {
+        return nbBlockedMessages;
+    }
+
+    /**
+     * <p>Gets the number of {@link Message Messages} delivered.</p>
+     * @return the number of delivered messages.
+     */
+    public long getNbDeliveredMessages() {
+        return nbDeliveredMessages;
+    }
+
+    /**
+     * <p>Gets the number of {@link Message Messages} currently waiting in the queues of all the
+     * {@link Link Links}.</p>
+     * @return the number of queued messages.
+     */
+    public int getNbQueuedMessages() {
+        return nbQueuedMessages;
+    }
+
+    /**
+     * <p>Gets the number of {@link Message Messages} currently waiting in the queue of the specified arc.</p>
+     * @param arc the arc, as a {@link Link.Orientation#DIRECTED} {@link Link}.
+     * @return the number of messages waiting on this arc.
+     */
+    public int getQueueOccupancy(Link arc) {
+        LinkQueue queue = queues.get(arc);
+        return queue == null ? 0 : queue.messages.size();
+    }
+
+    /**
+     * <p>Resets the dropped, blocked and delivered messages counters.</p>
+     */
+    public void resetCounters() {
+        nbDroppedMessages = 0;
+        nbBlockedMessages = 0;
+        nbDeliveredMessages = 0;
+    }
+
+    // endregion
+
+    @Override
+    public void onClock() {
+        List<Node> nodes = topology.getNodesSnapshot();
+
+        clearMailboxes(nodes);
+
+        List<Message> newMessages = collectMessages(nodes);
+        removeIrrelevantMessages(newMessages.listIterator(), nodes);
+        enqueueMessages(newMessages);
+
+        deliverQueuedMessages(nodes);
+    }
+
+    /**
+     * <p>Returns the next round if some {@link Node} has messages to send or some {@link Link} has queued messages,
+     * {@link Integer#MAX_VALUE} otherwise.</p>
+     * @param currentTime the current round.
+     * @return the next round during which {@link #onClock()} must be called.
+     */
+    @Override
+    public int getNextEventTime(int currentTime) {
+        if (nbQueuedMessages > 0)
+            return currentTime + 1;
+        return super.getNextEventTime(currentTime);
+    }
+
+    /**
+     * <p>Appends the provided {@link Message Messages} to the queues of their {@link Link Links}, applying the
+     * {@link OverflowPolicy} to the ones which do not fit.</p>
+     * @param newMessages the {@link Message Messages} collected during this round.
+     */
+    protected void enqueueMessages(List<Message> newMessages) {
+        for (Message message : newMessages) {
+            Link arc = message.getSender().getOutLinkTo(message.getDestination());
+            LinkQueue queue = queues.get(arc);
+            if (queue == null) {
+                queue = new LinkQueue();
+                queues.put(arc, queue);
+            }
+            if (queue.messages.size() < getQueueLength(arc)) {
+                queue.messages.add(message);
+                nbQueuedMessages++;
+            } else if (overflowPolicy == OverflowPolicy.BACKPRESSURE || message.isRetryModeEnabled()) {
+                requeueMessage(message);
+                nbBlockedMessages++;
+            } else {
+                nbDroppedMessages++;
+                countMessage(MessageStatistics.Counter.DROPPED, message);
+            }
+        }
+    }
+
+    /**
+     * <p>Delivers, for each {@link Link}, the {@link Message Messages} at the head of its queue within its budget.</p>
+     * @param existingNodes the {@link Collection} of existing {@link Node Nodes}.
+     */
+    protected void deliverQueuedMessages(Collection<Node> existingNodes) {
+        Iterator<Map.Entry<Link, LinkQueue>> iterator = queues.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Link, LinkQueue> entry = iterator.next();
+            LinkQueue queue = entry.getValue();
+            Link arc = entry.getKey().source.getOutLinkTo(entry.getKey().destination);
+            int capacity = arc == null ? 0 : getCapacity(arc);
+            queue.credit += capacity;
+            while (!queue.messages.isEmpty()) {
+                Message message = queue.messages.peekFirst();
+                if (!isMessageStillRelevant(message)) {
+                    queue.messages.pollFirst();
+                    nbQueuedMessages--;
+                    requeueIfNeeded(message, existingNodes);
+                    continue;
+                }
+                int size = messageSizeFunction.applyAsInt(message);
+                if (size > queue.credit)
+                    break;
+                queue.credit -= size;
+                queue.messages.pollFirst();
+                nbQueuedMessages--;
+                nbDeliveredMessages++;
+                deliverMessage(message);
+            }
+            if (queue.messages.isEmpty())
+                iterator.remove();
+            else
+                queue.credit = Math.min(queue.credit, getCarriedCredit(queue, capacity));
+        }
+    }
+
+    /**
+     * Gets the budget an arc may carry over to the next round: only the budget needed to deliver a head
+     * {@link Message} bigger than the capacity is kept, so that the arc never delivers more than its capacity during a
+     * round, except for this single {@link Message}.
+     */
+    private int getCarriedCredit(LinkQueue queue, int capacity) {
+        int size = messageSizeFunction.applyAsInt(queue.messages.peekFirst());
+        return Math.max(0, size - capacity);
+    }
+
+    /**
+     * <p>Gets the budget of the specified arc, per round.</p>
+     * @param arc the arc.
+     * @return the value of the {@link #CAPACITY_PROPERTY} property of the arc, or of the corresponding undirected
+     * {@link Link}, or the default capacity.
+     */
+    protected int getCapacity(Link arc) {
+        return getIntProperty(arc, CAPACITY_PROPERTY, defaultCapacity);
+    }
+
+    /**
+     * <p>Gets the maximum number of {@link Message Messages} waiting on the specified arc.</p>
+     * @param arc the arc.
+     * @return the value of the {@link #QUEUE_LENGTH_PROPERTY} property of the arc, or of the corresponding undirected
+     * {@link Link}, or the default queue length.
+     */
+    protected int getQueueLength(Link arc) {
+        return getIntProperty(arc, QUEUE_LENGTH_PROPERTY, defaultQueueLength);
+    }
+
+    private int getIntProperty(Link arc, String key, int defaultValue) {
+        Object value = arc.getProperty(key);
+        if (value == null) {
+            Link edge = arc.source.getCommonLinkWith(arc.destination);
+            if (edge != null)
+                value = edge.getProperty(key);
+        }
+        if (value instanceof Number)
+            return ((Number) value).intValue();
+        return defaultValue;
+    }
+
+    /**
+     * <p>Resets the {@link CapacityMessageEngine}.</p>
+     * <ul>
+     *   <li>Any {@link Message} (ready to be sent, queued or ready to be received) handled by the
+     * {@link CapacityMessageEngine} is discarded.</li>
+     *   <li>The counters are reset.</li>
+     *   <li>Other configurations remain untouched.</li>
+     * </ul>
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        queues.clear();
+        nbQueuedMessages = 0;
+        resetCounters();
+    }
+
+    private static class LinkQueue {
+        final ArrayDeque<Message> messages = new ArrayDeque<>();
+        int credit = 0;
+    }
+}
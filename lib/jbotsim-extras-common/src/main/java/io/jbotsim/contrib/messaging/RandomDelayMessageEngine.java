@@ -26,10 +26,11 @@ import java.util.*;
 
 /**
  * <p>The {@link RandomDelayMessageEngine} is a random alternative to JBotSim's default {@link MessageEngine}.</p>
- * <p>For each new message, a random delay is drawn in [0,{@link #getDelay()}).</p>
+ * <p>For each new message, a random delay is drawn in [0,{@link #getDelay()}), from a generator seeded by the
+ * {@link Topology} (see {@link Topology#getRandom(String)}).</p>
  */
 public class RandomDelayMessageEngine extends DelayMessageEngine {
-    protected Random r = new Random();
+    protected Random r;
 
     /**
      * <p>Creates a {@link RandomDelayMessageEngine} object.</p>
@@ -40,6 +41,7 @@ public class RandomDelayMessageEngine extends DelayMessageEngine {
     public RandomDelayMessageEngine(Topology topology, int maxDelay){
         super(topology, maxDelay);
         assert(maxDelay > 0);
+        r = new Random(topology.getRandom(RandomDelayMessageEngine.class.getName()).nextLong());
     }
 
     @Override
@@ -51,5 +51,10 @@ public class ObstacleLinkResolver extends LinkResolver {
         }
         return false;
     }
-    
+
+    @Override
+    public boolean isBoundedByCommunicationRange() {
+        return true;
+    }
+
 }
@@ -24,13 +24,14 @@ import io.jbotsim.core.Link;
 import io.jbotsim.core.Node;
 import io.jbotsim.core.Topology;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * The {@link RandomLocationsGenerator} is a {@link TopologyGenerator} used to create randomly-positioned {@link Node}s.
+ * The locations are drawn from the random stream of the {@link Topology} (see {@link Topology#getRandom(String)}).
  */
 public class RandomLocationsGenerator extends AbstractGenerator {
-    private Random rnd = new Random();
+    private SplittableRandom rnd;
 
 
     /**
@@ -45,6 +46,7 @@ public class RandomLocationsGenerator extends AbstractGenerator {
 
     @Override
     public void generate(Topology topology) {
+        rnd = topology.getRandom(RandomLocationsGenerator.class.getName());
         try {
             int nbNodes = getNbNodes();
             Node[] nodes = generateNodes(topology, nbNodes);
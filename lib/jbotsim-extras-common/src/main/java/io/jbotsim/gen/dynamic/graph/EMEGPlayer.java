@@ -24,7 +24,7 @@ import io.jbotsim.core.Node;
 import io.jbotsim.core.Topology;
 import io.jbotsim.core.event.ClockListener;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class EMEGPlayer implements ClockListener{
     protected TVG tvg;
@@ -49,7 +49,7 @@ public class EMEGPlayer implements ClockListener{
     public void start(){
         tp.resetTime();
         tp.addClockListener(this);
-        Random r = new Random();
+        SplittableRandom r = tp.getRandom(EMEGPlayer.class.getName());
         for (TVLink l : tvg.tvlinks)
             if (r.nextDouble() < steadyProb)
                 tp.addLink(l);
@@ -58,7 +58,7 @@ public class EMEGPlayer implements ClockListener{
         updateLinks();
     }
     protected void updateLinks(){
-        Random r = new Random();
+        SplittableRandom r = tp.getRandom(EMEGPlayer.class.getName());
         for (TVLink l : tvg.tvlinks){
             if (tp.getLinks().contains(l) && r.nextDouble() < deathRate)
                 tp.removeLink(l);
@@ -21,7 +21,7 @@
 package io.jbotsim.gen.dynamic.graph;
 
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import io.jbotsim.core.Link;
 import io.jbotsim.core.Node;
@@ -38,7 +38,7 @@ public class EMEGTopology extends Topology{
     public void initializeEdges() {
         for (Link l : super.getLinks())
             super.removeLink(l);
-        Random random=new Random();
+        SplittableRandom random=getRandom(EMEGTopology.class.getName());
         List<Node> nodes = super.getNodes();
         for (int i=0; i<nodes.size(); i++){
             for (int j=i+1; j<nodes.size(); j++){
@@ -49,7 +49,7 @@ public class EMEGTopology extends Topology{
         }
     }
     public void updateLinks() {
-        Random random=new Random();
+        SplittableRandom random=getRandom(EMEGTopology.class.getName());
         List<Node> nodes = super.getNodes();
         for (int i=0; i<nodes.size(); i++){
             for (int j=i+1; j<nodes.size(); j++){
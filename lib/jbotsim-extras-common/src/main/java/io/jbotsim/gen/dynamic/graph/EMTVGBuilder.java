@@ -22,7 +22,7 @@ package io.jbotsim.gen.dynamic.graph;
 
 import io.jbotsim.core.Node;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.Vector;
 
 /*
@@ -30,18 +30,31 @@ import java.util.Vector;
  */
 public class EMTVGBuilder {
     public static TVG createGraph(Vector<Node> nodes, double birthRate, double deathRate, int lifetime){
+        return createGraph(nodes, birthRate, deathRate, lifetime, new SplittableRandom());
+    }
+    /**
+     * Creates an edge-markovian time-varying graph, drawing the edges from the specified random stream, for instance
+     * one obtained with {@link io.jbotsim.core.Topology#getRandom(String)}, so that it can be reproduced.
+     * @param nodes the nodes of the graph
+     * @param birthRate the probability for a missing edge to appear at each date
+     * @param deathRate the probability for an existing edge to disappear at each date
+     * @param lifetime the number of dates
+     * @param random the random stream
+     * @return the time-varying graph
+     */
+    public static TVG createGraph(Vector<Node> nodes, double birthRate, double deathRate, int lifetime,
+                                  SplittableRandom random){
         TVG tvg=new TVG();
         double steadyProb = birthRate/(birthRate+deathRate);
         for (Node n : nodes)
             tvg.nodes.add(n);
-        createInitialEdges(tvg, steadyProb);
+        createInitialEdges(tvg, steadyProb, random);
         for (int date=1; date<lifetime-1; date++)
-            createNextEdges(tvg, date, birthRate, deathRate);
+            createNextEdges(tvg, date, birthRate, deathRate, random);
         createLastEdges(tvg, lifetime-1);
         return tvg;
     }
-    private static void createInitialEdges(TVG tvg, double steadyProb){
-        Random r=new Random();
+    private static void createInitialEdges(TVG tvg, double steadyProb, SplittableRandom r){
         Vector<Node> nodes=tvg.nodes;
         for (int i=0; i<nodes.size(); i++){
             for (int j=i+1; j<nodes.size(); j++){
@@ -52,8 +65,7 @@ public class EMTVGBuilder {
             }
         }        
     }
-    private static void createNextEdges(TVG tvg, int date, double birthRate, double deathRate){
-        Random r=new Random();
+    private static void createNextEdges(TVG tvg, int date, double birthRate, double deathRate, SplittableRandom r){
         for (TVLink l : tvg.tvlinks){
             if (l.isPresentAtTime(date-1)){
                 if (r.nextDouble()<deathRate)
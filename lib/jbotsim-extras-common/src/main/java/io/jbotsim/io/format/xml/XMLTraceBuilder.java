@@ -27,24 +27,34 @@ import io.jbotsim.gen.dynamic.trace.TraceFileWriter;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Builder used to store recorded <i>executions</i> of a {@link Topology}.
  *
  * <p>This class is used, mainly, through methods inherited from {@link XMLBuilder}. It calls
- * {@link XMLTopologyBuilder#buildTopologyElement} to build the element that stores the recorded {@link Topology}.</p>
+ * {@link XMLTopologyBuilder#buildTopologyElement} to keep the element that stores the recorded {@link Topology}, as
+ * it was when the builder was created.</p>
  *
- * <p>Event of the {@link Topology} are recorded using {@link #addTraceEvent(TraceEvent)} method.</p>
+ * <p>Event of the {@link Topology} are recorded using {@link #addTraceEvent(TraceEvent)} method. They are kept as
+ * {@link TraceEvent TraceEvents} and written, after the {@link Topology}, when the document is output.</p>
  */
 public class XMLTraceBuilder extends XMLBuilder implements TraceFileWriter {
+    private final Element topologyElement;
+    private final List<TraceEvent> events = new ArrayList<>();
     private Element traceElement;
     private Topology tp;
 
     /**
-     * This constructor add to the root element of the {@link Document document} the {@code trace} element that
-     * stores the {@link Topology topology} {@code tp} and the recorded events.
+     * This constructor prepares a document whose root element contains the {@code trace} element that stores the
+     * {@link Topology topology} {@code tp} and the recorded events.
      *
      * Since the trace may not exist before the creation of the document, events are stored one by one using
-     * {@link #addTraceEvent(TraceEvent)} after the document has been built.
+     * {@link #addTraceEvent(TraceEvent)} after the builder has been created.
      *
      * @param tp the {@link Topology topology} that is traced.
      * @throws BuilderException is raised if an error occurs while the document is built.
@@ -52,12 +62,12 @@ public class XMLTraceBuilder extends XMLBuilder implements TraceFileWriter {
     public XMLTraceBuilder(Topology tp) throws BuilderException {
         super();
         this.tp = tp;
-        Document document = getDocument();
-        traceElement = XMLKeys.TRACE.createElement(document);
-        Element topo = XMLTopologyBuilder.buildTopologyElement(document, tp);
-        traceElement.appendChild(topo);
-
-        document.getDocumentElement().appendChild(traceElement);
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            topologyElement = XMLTopologyBuilder.buildTopologyElement(document, tp);
+        } catch (ParserConfigurationException e) {
+            throw new BuilderException(e);
+        }
     }
 
     protected FileAsStream getFileAccessor() {
@@ -73,11 +83,16 @@ public class XMLTraceBuilder extends XMLBuilder implements TraceFileWriter {
      */
     @Override
     public void write(String filename) throws BuilderException {
-        try {
-            new XMLIO(getFileAccessor()).write(filename, getDocument());
-        } catch (XMLIO.XMLIOException e) {
-            throw new BuilderException(e);
-        }
+        write(getFileAccessor(), filename);
+    }
+
+    @Override
+    protected void writeRootElement(XMLElementWriter writer) throws XMLStreamException {
+        writer.startElement(XMLKeys.TRACE);
+        writer.writeElement(topologyElement);
+        for (TraceEvent e : events)
+            writeTraceEvent(writer, e);
+        writer.endElement();
     }
 
     /**
@@ -87,40 +102,54 @@ public class XMLTraceBuilder extends XMLBuilder implements TraceFileWriter {
      */
     @Override
     public void addTraceEvent(TraceEvent e){
-        Document doc = getDocument();
-        Element event = null;
+        events.add(e);
+        if (isDocumentBuilt()) {
+            if (traceElement == null)
+                traceElement = (Element) getDocument().getDocumentElement().getFirstChild();
+            try {
+                XMLElementWriter writer = createElementWriter(traceElement);
+                writeTraceEvent(writer, e);
+                writer.flush();
+            } catch (XMLStreamException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    private static void writeTraceEvent(XMLElementWriter writer, TraceEvent e) throws XMLStreamException {
         switch(e.getKind()) {
             case START_TOPOLOGY:
-                event = XMLKeys.START_TOPOLOGY.createElement(doc);
-                XMLKeys.TIME_ATTR.setAttribute(event, e.getTime());
+                writer.startElement(XMLKeys.START_TOPOLOGY);
+                writer.setAttribute(XMLKeys.TIME_ATTR, e.getTime());
                 break;
             case ADD_NODE:
-                event = XMLKeys.ADD_NODE.createElement(doc);
-                XMLKeys.TIME_ATTR.setAttribute(event, e.getTime());
-                XMLKeys.IDENTIFIER_ATTR.setAttribute(event, e.getNodeID());
-                XMLKeys.LOCATION_X_ATTR.setAttribute(event, e.getX());
-                XMLKeys.LOCATION_Y_ATTR.setAttribute(event, e.getY());
-                XMLKeys.NODECLASS.setAttribute(event, e.getNodeClass());
+                writer.startElement(XMLKeys.ADD_NODE);
+                writer.setAttribute(XMLKeys.TIME_ATTR, e.getTime());
+                writer.setAttribute(XMLKeys.IDENTIFIER_ATTR, e.getNodeID());
+                writer.setAttribute(XMLKeys.LOCATION_X_ATTR, e.getX());
+                writer.setAttribute(XMLKeys.LOCATION_Y_ATTR, e.getY());
+                writer.setAttribute(XMLKeys.NODECLASS, e.getNodeClass());
                 break;
             case DEL_NODE:
-                event = XMLKeys.DELETE_NODE.createElement(doc);
-                XMLKeys.TIME_ATTR.setAttribute(event, e.getTime());
-                XMLKeys.IDENTIFIER_ATTR.setAttribute(event, e.getNodeID());
+                writer.startElement(XMLKeys.DELETE_NODE);
+                writer.setAttribute(XMLKeys.TIME_ATTR, e.getTime());
+                writer.setAttribute(XMLKeys.IDENTIFIER_ATTR, e.getNodeID());
                 break;
             case MOVE_NODE:
-                event = XMLKeys.MOVE_NODE.createElement(doc);
-                XMLKeys.TIME_ATTR.setAttribute(event, e.getTime());
-                XMLKeys.IDENTIFIER_ATTR.setAttribute(event, e.getNodeID());
-                XMLKeys.LOCATION_X_ATTR.setAttribute(event, e.getX());
-                XMLKeys.LOCATION_Y_ATTR.setAttribute(event, e.getY());
+                writer.startElement(XMLKeys.MOVE_NODE);
+                writer.setAttribute(XMLKeys.TIME_ATTR, e.getTime());
+                writer.setAttribute(XMLKeys.IDENTIFIER_ATTR, e.getNodeID());
+                writer.setAttribute(XMLKeys.LOCATION_X_ATTR, e.getX());
+                writer.setAttribute(XMLKeys.LOCATION_Y_ATTR, e.getY());
                 break;
             case SELECT_NODE:
-                event = XMLKeys.SELECT_NODE.createElement(doc);
-                XMLKeys.TIME_ATTR.setAttribute(event, e.getTime());
-                XMLKeys.IDENTIFIER_ATTR.setAttribute(event, e.getNodeID());
+                writer.startElement(XMLKeys.SELECT_NODE);
+                writer.setAttribute(XMLKeys.TIME_ATTR, e.getTime());
+                writer.setAttribute(XMLKeys.IDENTIFIER_ATTR, e.getNodeID());
                 break;
+            default:
+                throw new IllegalArgumentException("unknown event kind: " + e.getKind());
         }
-        assert(event != null);
-        traceElement.appendChild(event);
+        writer.endElement();
     }
 }
@@ -27,6 +27,9 @@ import io.jbotsim.gen.dynamic.trace.TraceFileReader;
 import io.jbotsim.gen.dynamic.trace.TracePlayer;
 import org.w3c.dom.Element;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * Interpreter for an {@link org.w3c.dom.Document XML document} that represents a trace of execution of a
  * {@link Topology}.
@@ -36,6 +39,9 @@ import org.w3c.dom.Element;
  * topology.
  *
  * The class does not create an new topology. It populates a {@link TracePlayer} passed to the constructor.
+ *
+ * In streaming mode (see {@link #enableStreaming()}), the {@link TraceEvent events} are added to the
+ * {@link TracePlayer} as soon as they are read.
  */
 public class XMLTraceParser extends XMLParser implements TraceFileReader {
     private TracePlayer tracePlayer;
@@ -62,6 +68,14 @@ public class XMLTraceParser extends XMLParser implements TraceFileReader {
     @Override
     public void parse(String filename, TracePlayer tracePlayer) throws ParserException {
         this.tracePlayer = tracePlayer;
+        if (isStreamingEnabled()) {
+            try (InputStream input = getFileAccessor().getInputStreamForName(filename)) {
+                parse(input);
+            } catch (IOException e) {
+                throw new ParserException(new XMLIO.XMLIOException(e));
+            }
+            return;
+        }
         try {
             parse(new XMLIO(getFileAccessor()).read(filename));
         } catch (XMLIO.XMLIOException e) {
@@ -78,6 +92,11 @@ public class XMLTraceParser extends XMLParser implements TraceFileReader {
         parseTraceElement(element, tracePlayer);
     }
 
+    @Override
+    protected ElementHandler getRootElementHandler() {
+        return createTraceElementHandler(tracePlayer);
+    }
+
     /**
      * Populates the given {@link TracePlayer} {@code tracePlayer} with the topology and events describes by
      * {@link Element element}.
@@ -93,24 +112,49 @@ public class XMLTraceParser extends XMLParser implements TraceFileReader {
         mapElementChildrenOf(element, e -> {
             if (XMLKeys.TOPOLOGY.labelsElement(e))
                 XMLTopologyParser.parseTopologyElement(e, tp.getTopology());
-            else {
-                TraceEvent ev = null;
-                if (XMLKeys.ADD_NODE.labelsElement(e))
-                    ev = parseAddNodeEvent(e);
-                else if (XMLKeys.DELETE_NODE.labelsElement(e))
-                    ev = parseDeleteNodeEvent(e);
-                else if (XMLKeys.MOVE_NODE.labelsElement(e))
-                    ev = parseMoveNodeEvent(e);
-                else if (XMLKeys.SELECT_NODE.labelsElement(e))
-                    ev = parseSelectNodeEvent(e);
-                else if (XMLKeys.START_TOPOLOGY.labelsElement(e))
-                    ev = parseStartTopologyEvent(e);
-                assert (ev != null);
-                tp.addTraceEvent(ev);
-            }
+            else
+                tp.addTraceEvent(parseEvent(e));
         });
     }
 
+    /**
+     * Creates the {@link ElementHandler} interpreting the root element of a trace in streaming mode, which populates
+     * the given {@link TracePlayer} {@code tp}.
+     *
+     * @param tp the {@link TracePlayer} populated by the parser
+     * @return the handler of the {@link Element root element} of the XML tree describing the trace.
+     * @see #parseTraceElement(Element, TracePlayer)
+     */
+    public static ElementHandler createTraceElementHandler(TracePlayer tp) {
+        return element -> {
+            if (!XMLKeys.TRACE.equals(element.getNodeName()))
+                throw new ParserException("invalid node '" + element.getNodeName() + "' where '" +
+                        XMLKeys.TRACE + "' was expected");
+            return e -> {
+                if (XMLKeys.TOPOLOGY.labelsElement(e))
+                    return XMLTopologyParser.createTopologyElementHandler(tp.getTopology()).startElement(e);
+                tp.addTraceEvent(parseEvent(e));
+                return null;
+            };
+        };
+    }
+
+    private static TraceEvent parseEvent(Element e) {
+        TraceEvent ev = null;
+        if (XMLKeys.ADD_NODE.labelsElement(e))
+            ev = parseAddNodeEvent(e);
+        else if (XMLKeys.DELETE_NODE.labelsElement(e))
+            ev = parseDeleteNodeEvent(e);
+        else if (XMLKeys.MOVE_NODE.labelsElement(e))
+            ev = parseMoveNodeEvent(e);
+        else if (XMLKeys.SELECT_NODE.labelsElement(e))
+            ev = parseSelectNodeEvent(e);
+        else if (XMLKeys.START_TOPOLOGY.labelsElement(e))
+            ev = parseStartTopologyEvent(e);
+        assert (ev != null);
+        return ev;
+    }
+
     private static TraceEvent parseStartTopologyEvent (Element e) {
         int time = XMLKeys.TIME_ATTR.getIntegerValueFor(e);
         return TraceEvent.newStartTopology(time);
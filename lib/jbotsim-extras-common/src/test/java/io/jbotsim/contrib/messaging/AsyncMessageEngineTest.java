@@ -21,10 +21,15 @@
 
 package io.jbotsim.contrib.messaging;
 
+import io.jbotsim.core.Message;
+import io.jbotsim.core.Node;
 import io.jbotsim.core.Topology;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -89,4 +94,71 @@ class AsyncMessageEngineTest {
 //                ", diff " + diff + ", percentage " + lambdaPercentage);
         assertTrue(diff < lambdaPercentage);
     }
-}
\ No newline at end of file
+
+    @Test
+    void computeDelayFunction_sameSeed_sameDelays() {
+        AsyncMessageEngine otherEngine = new AsyncMessageEngine(new Topology());
+        messageEngine.setSeed(42);
+        otherEngine.setSeed(42);
+
+        for (int i = 0; i < 1000; i++)
+            assertEquals(messageEngine.computeDelayFunction(LAMBDA), otherEngine.computeDelayFunction(LAMBDA));
+    }
+
+    @Test
+    void fifo_manyArcs_messagesDeliveredInSendingOrder() {
+        runFifoRounds(false);
+    }
+
+    @Test
+    void fifo_idsShuffledOnEachRound_messagesDeliveredInSendingOrder() {
+        runFifoRounds(true);
+    }
+
+    private void runFifoRounds(boolean shuffleIds) {
+        Topology topology = new Topology();
+        AsyncMessageEngine engine = new AsyncMessageEngine(topology, LAMBDA, AsyncMessageEngine.Type.FIFO);
+        engine.setSeed(1);
+        topology.setMessageEngine(engine);
+        List<ReceivingNode> nodes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ReceivingNode node = new ReceivingNode();
+            topology.addNode(100 + 5 * i, 100, node);
+            nodes.add(node);
+        }
+        topology.runRounds(1);
+
+        for (int round = 0; round < 50; round++) {
+            for (Node node : nodes)
+                node.sendAll(new Message(round));
+            if (shuffleIds)
+                topology.shuffleNodeIds();
+            topology.runRounds(1);
+        }
+        topology.runRounds(20 * LAMBDA);
+
+        for (ReceivingNode node : nodes) {
+            assertEquals(50 * (nodes.size() - 1), node.received.size());
+            for (Node sender : nodes)
+                if (sender != node)
+                    assertInSendingOrder(node.received, sender);
+        }
+    }
+
+    private void assertInSendingOrder(List<Message> received, Node sender) {
+        int expected = 0;
+        for (Message message : received)
+            if (message.getSender() == sender)
+                assertEquals(expected++, message.getContent());
+        assertEquals(50, expected);
+    }
+
+    private static class ReceivingNode extends Node {
+        final List<Message> received = new ArrayList<>();
+
+        @Override
+        public void onMessage(Message message) {
+            received.add(message);
+        }
+    }
+}
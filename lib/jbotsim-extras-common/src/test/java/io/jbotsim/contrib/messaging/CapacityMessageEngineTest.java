@@ -0,0 +1,184 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.contrib.messaging;
+
+import io.jbotsim.core.Message;
+import io.jbotsim.core.MessageStatistics;
+import io.jbotsim.core.Node;
+import io.jbotsim.core.Topology;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapacityMessageEngineTest {
+
+    private Topology topology;
+    private Node sender;
+    private ReceivingNode receiver;
+
+    @BeforeEach
+    void setUp() {
+        topology = new Topology();
+        sender = new Node();
+        receiver = new ReceivingNode();
+        topology.addNode(100, 100, sender);
+        topology.addNode(120, 100, receiver);
+    }
+
+    @Test
+    void defaultCapacity_oneMessagePerRound() {
+        CapacityMessageEngine engine = createEngine(1, 16, CapacityMessageEngine.OverflowPolicy.TAIL_DROP);
+
+        sendMessages(5);
+        topology.runRounds(1);
+        assertEquals(1, receiver.received.size());
+        assertEquals(4, engine.getNbQueuedMessages());
+        assertEquals(4, engine.getQueueOccupancy(sender.getOutLinkTo(receiver)));
+
+        topology.runRounds(4);
+        assertEquals(5, receiver.received.size());
+        for (int i = 0; i < 5; i++)
+            assertEquals(i, receiver.received.get(i).getContent());
+        assertEquals(0, engine.getNbQueuedMessages());
+        assertEquals(5, engine.getNbDeliveredMessages());
+    }
+
+    @Test
+    void tailDrop_queueFull_messagesDropped() {
+        CapacityMessageEngine engine = createEngine(1, 2, CapacityMessageEngine.OverflowPolicy.TAIL_DROP);
+
+        sendMessages(5);
+        topology.runRounds(5);
+
+        assertEquals(2, receiver.received.size());
+        assertEquals(3, engine.getNbDroppedMessages());
+    }
+
+    @Test
+    void tailDrop_countedInMessageStatistics() {
+        CapacityMessageEngine engine = createEngine(1, 2, CapacityMessageEngine.OverflowPolicy.TAIL_DROP);
+        MessageStatistics statistics = new MessageStatistics();
+        engine.setMessageStatistics(statistics);
+
+        sendMessages(5);
+        topology.runRounds(5);
+
+        assertEquals(3, statistics.getCount(MessageStatistics.Counter.DROPPED));
+        assertEquals(2, statistics.getCount(MessageStatistics.Counter.DELIVERED));
+    }
+
+    @Test
+    void backpressure_queueFull_messagesDelayed() {
+        CapacityMessageEngine engine = createEngine(1, 2, CapacityMessageEngine.OverflowPolicy.BACKPRESSURE);
+
+        sendMessages(5);
+        topology.runRounds(6);
+
+        assertEquals(5, receiver.received.size());
+        for (int i = 0; i < 5; i++)
+            assertEquals(i, receiver.received.get(i).getContent());
+        assertEquals(0, engine.getNbDroppedMessages());
+        assertTrue(engine.getNbBlockedMessages() > 0);
+    }
+
+    @Test
+    void capacityProperty_usedAsBudget() {
+        createEngine(1, 16, CapacityMessageEngine.OverflowPolicy.TAIL_DROP);
+        sender.getCommonLinkWith(receiver).setProperty(CapacityMessageEngine.CAPACITY_PROPERTY, 3);
+
+        sendMessages(5);
+        topology.runRounds(1);
+
+        assertEquals(3, receiver.received.size());
+    }
+
+    @Test
+    void messageBiggerThanBudget_deliveredOnceBudgetAccumulated() {
+        CapacityMessageEngine engine = createEngine(1, 16, CapacityMessageEngine.OverflowPolicy.TAIL_DROP);
+        engine.setMessageSizeFunction(message -> 3);
+
+        sendMessages(2);
+        topology.runRounds(2);
+        assertTrue(receiver.received.isEmpty());
+
+        topology.runRounds(1);
+        assertEquals(1, receiver.received.size());
+        topology.runRounds(3);
+        assertEquals(2, receiver.received.size());
+    }
+
+    @Test
+    void unusedBudget_notCarriedOver() {
+        int capacity = 5;
+        CapacityMessageEngine engine = createEngine(capacity, 16, CapacityMessageEngine.OverflowPolicy.TAIL_DROP);
+        engine.setMessageSizeFunction(message -> 3);
+
+        sendMessages(10);
+        topology.runRounds(10);
+
+        assertEquals(10, receiver.received.size());
+        for (int time : receiver.receptionTimes)
+            assertTrue(3 * Collections.frequency(receiver.receptionTimes, time) <= capacity);
+    }
+
+    @Test
+    void linkRemoved_queuedMessagesDropped() {
+        CapacityMessageEngine engine = createEngine(1, 16, CapacityMessageEngine.OverflowPolicy.TAIL_DROP);
+
+        sendMessages(5);
+        topology.runRounds(1);
+        receiver.setLocation(1000, 1000);
+        topology.runRounds(1);
+
+        assertEquals(1, receiver.received.size());
+        assertEquals(0, engine.getNbQueuedMessages());
+    }
+
+    private CapacityMessageEngine createEngine(int capacity, int queueLength,
+                                               CapacityMessageEngine.OverflowPolicy policy) {
+        CapacityMessageEngine engine = new CapacityMessageEngine(topology, capacity, queueLength, policy);
+        topology.setMessageEngine(engine);
+        topology.runRounds(1);
+        return engine;
+    }
+
+    private void sendMessages(int nbMessages) {
+        for (int i = 0; i < nbMessages; i++)
+            sender.send(receiver, new Message(i));
+    }
+
+    private static class ReceivingNode extends Node {
+        final List<Message> received = new ArrayList<>();
+        final List<Integer> receptionTimes = new ArrayList<>();
+
+        @Override
+        public void onMessage(Message message) {
+            received.add(message);
+            receptionTimes.add(getTime());
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.jfr;
+
+import io.jbotsim.core.Link;
+import io.jbotsim.core.Node;
+import io.jbotsim.core.RoundMetrics;
+import io.jbotsim.core.Topology;
+import io.jbotsim.core.event.ConnectivityListener;
+import io.jbotsim.core.event.RoundMetricsListener;
+import io.jbotsim.core.event.TopologyListener;
+
+/**
+ * <p>The {@link FlightRecorderEvents} emit Java Flight Recorder events for the rounds, the links, the nodes and the
+ * messages of a {@link Topology}.</p>
+ *
+ * <p>Once started, they listen to the {@link Topology}:</p>
+ * <ul>
+ *     <li>a {@link RoundEvent} spans each round, and a {@link RoundPhaseEvent} is emitted for each of its phases, from
+ *     the {@link RoundMetrics} of the round;</li>
+ *     <li>a {@link MessageDeliveryEvent} gives the batch of messages delivered during each round;</li>
+ *     <li>a {@link LinkAddedEvent} (resp. {@link LinkRemovedEvent}) is emitted for each arc added (resp. removed);</li>
+ *     <li>a {@link NodeAddedEvent}, {@link NodeRemovedEvent} or {@link NodeDiedEvent} is emitted for each node added,
+ *     removed or dead.</li>
+ * </ul>
+ *
+ * <p>Since the rounds are profiled while listened to (see
+ * {@link Topology#addRoundMetricsListener(RoundMetricsListener)}), the {@link FlightRecorderEvents} should only be
+ * started when recording.</p>
+ */
+public class FlightRecorderEvents implements RoundMetricsListener, ConnectivityListener, TopologyListener {
+    private static final RoundMetrics.Phase[] PHASES = RoundMetrics.Phase.values();
+
+    private final Topology topology;
+    private boolean started = false;
+    private RoundEvent roundEvent;
+
+    /**
+     * Creates {@link FlightRecorderEvents} for the specified {@link Topology}.
+     *
+     * @param topology the {@link Topology} to record.
+     */
+    public FlightRecorderEvents(Topology topology) {
+        this.topology = topology;
+    }
+
+    /**
+     * Starts emitting the events, by registering the listeners on the {@link Topology}.
+     */
+    public void start() {
+        if (started)
+            return;
+        topology.addRoundMetricsListener(this);
+        topology.addConnectivityListener(this, Link.Orientation.DIRECTED);
+        topology.addTopologyListener(this);
+        started = true;
+    }
+
+    /**
+     * Stops emitting the events, by unregistering the listeners from the {@link Topology}.
+     */
+    public void stop() {
+        if (!started)
+            return;
+        topology.removeRoundMetricsListener(this);
+        topology.removeConnectivityListener(this, Link.Orientation.DIRECTED);
+        topology.removeTopologyListener(this);
+        roundEvent = null;
+        started = false;
+    }
+
+    /**
+     * Indicates whether the events are being emitted.
+     *
+     * @return <code>true</code> if started, <code>false</code> otherwise.
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    // region RoundMetricsListener
+
+    @Override
+    public void onRoundStart(RoundMetrics metrics) {
+        RoundEvent event = new RoundEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            roundEvent = event;
+        }
+    }
+
+    @Override
+    public void onRoundMetrics(RoundMetrics metrics) {
+        RoundEvent event = roundEvent;
+        roundEvent = null;
+        if (event != null && event.shouldCommit()) {
+            event.round = metrics.getRound();
+            event.nbTouchedNodes = metrics.getNbTouchedNodes();
+            event.nbAddedArcs = metrics.getNbAddedArcs();
+            event.nbRemovedArcs = metrics.getNbRemovedArcs();
+            event.nbDeliveredMessages = metrics.getNbDeliveredMessages();
+            event.commit();
+        }
+
+        for (RoundMetrics.Phase phase : PHASES) {
+            RoundPhaseEvent phaseEvent = new RoundPhaseEvent();
+            if (!phaseEvent.shouldCommit())
+                break;
+            phaseEvent.round = metrics.getRound();
+            phaseEvent.phase = phase.name();
+            phaseEvent.phaseDuration = metrics.getDuration(phase);
+            phaseEvent.commit();
+        }
+
+        MessageDeliveryEvent deliveryEvent = new MessageDeliveryEvent();
+        if (deliveryEvent.shouldCommit()) {
+            deliveryEvent.round = metrics.getRound();
+            deliveryEvent.nbDeliveredMessages = metrics.getNbDeliveredMessages();
+            deliveryEvent.deliveryDuration = metrics.getDuration(RoundMetrics.Phase.MESSAGE_ENGINE);
+            deliveryEvent.commit();
+        }
+    }
+
+    // endregion RoundMetricsListener
+
+    // region ConnectivityListener
+
+    @Override
+    public void onLinkAdded(Link link) {
+        LinkAddedEvent event = new LinkAddedEvent();
+        if (event.shouldCommit()) {
+            event.source = link.source.getID();
+            event.destination = link.destination.getID();
+            event.wired = !link.isWireless();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onLinkRemoved(Link link) {
+        LinkRemovedEvent event = new LinkRemovedEvent();
+        if (event.shouldCommit()) {
+            event.source = link.source.getID();
+            event.destination = link.destination.getID();
+            event.wired = !link.isWireless();
+            event.commit();
+        }
+    }
+
+    // endregion ConnectivityListener
+
+    // region TopologyListener
+
+    @Override
+    public void onNodeAdded(Node node) {
+        NodeAddedEvent event = new NodeAddedEvent();
+        if (event.shouldCommit()) {
+            event.node = node.getID();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onNodeRemoved(Node node) {
+        if (node.isDying()) {
+            NodeDiedEvent event = new NodeDiedEvent();
+            if (event.shouldCommit()) {
+                event.node = node.getID();
+                event.commit();
+            }
+        } else {
+            NodeRemovedEvent event = new NodeRemovedEvent();
+            if (event.shouldCommit()) {
+                event.node = node.getID();
+                event.commit();
+            }
+        }
+    }
+
+    // endregion TopologyListener
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * A flight recorder event spanning a round of the {@link io.jbotsim.core.Topology}.
+ */
+@Name("io.jbotsim.Round")
+@Label("Round")
+@Category("JBotSim")
+@Description("A round of the topology")
+public class RoundEvent extends Event {
+    @Label("Round")
+    int round;
+
+    @Label("Touched Nodes")
+    int nbTouchedNodes;
+
+    @Label("Added Arcs")
+    int nbAddedArcs;
+
+    @Label("Removed Arcs")
+    int nbRemovedArcs;
+
+    @Label("Delivered Messages")
+    int nbDeliveredMessages;
+}
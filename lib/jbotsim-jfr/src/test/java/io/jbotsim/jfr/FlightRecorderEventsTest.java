@@ -0,0 +1,84 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+
+package io.jbotsim.jfr;
+
+import io.jbotsim.core.Node;
+import io.jbotsim.core.RoundMetrics;
+import io.jbotsim.core.Topology;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderEventsTest {
+
+    @Test
+    void start_eventsRecorded() throws IOException {
+        Topology topology = new Topology();
+        FlightRecorderEvents events = new FlightRecorderEvents(topology);
+        List<RecordedEvent> recorded;
+        try (Recording recording = new Recording()) {
+            recording.enable(RoundEvent.class);
+            recording.enable(RoundPhaseEvent.class);
+            recording.enable(LinkAddedEvent.class);
+            recording.enable(NodeAddedEvent.class);
+            recording.enable(NodeDiedEvent.class);
+            recording.start();
+            events.start();
+
+            Node node = new Node();
+            topology.addNode(100, 100, node);
+            topology.addNode(120, 100, new Node());
+            topology.runRounds(2);
+            node.die();
+            topology.runRounds(1);
+
+            events.stop();
+            recording.stop();
+            Path file = Files.createTempFile("jbotsim", ".jfr");
+            try {
+                recording.dump(file);
+                recorded = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        assertEquals(3, count(recorded, "io.jbotsim.Round"));
+        assertEquals(3 * RoundMetrics.Phase.values().length, count(recorded, "io.jbotsim.RoundPhase"));
+        assertEquals(2, count(recorded, "io.jbotsim.LinkAdded"));
+        assertEquals(2, count(recorded, "io.jbotsim.NodeAdded"));
+        assertEquals(1, count(recorded, "io.jbotsim.NodeDied"));
+        assertFalse(events.isStarted());
+    }
+
+    private static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).count();
+    }
+}
@@ -20,22 +20,31 @@
  */
 package io.jbotsim.io.format.xml;
 
+import io.jbotsim.io.FileAsStream;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import java.io.File;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.dom.DOMResult;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Base class for ones used to build JBotSim XML document.
  *
- * <p>The class creates a {@link Document XML document}. Following {@code jbotsim-}{@link #DEFAULT_VERSION}{@code .xsd}
- * schema, a root element labelled {@code "jbotsim"} is added to the document and its attribute {@code version} is
- * assigned the value {@link #DEFAULT_VERSION}.</p>
+ * <p>Following {@code jbotsim-}{@link #DEFAULT_VERSION}{@code .xsd} schema, a root element labelled
+ * {@code "jbotsim"} is written and its attribute {@code version} is assigned the value {@link #DEFAULT_VERSION}.
+ * Its content is written by subclasses, through {@link #writeRootElement(XMLElementWriter)}.</p>
  *
- * <p>Helper methods exists to output the document using methods of the {@link XMLIO} class.</p>
+ * <p>The document is streamed to its output (see {@link #write(OutputStream)}), so that the memory used does not
+ * depend on its size. The {@link Document XML document} is only built when requested with {@link #getDocument()};
+ * it is then the one written.</p>
  *
  * @see XMLIO
  * @see XMLIO.XMLIOException
@@ -48,45 +57,143 @@ public abstract class XMLBuilder {
      */
     public static final String DEFAULT_VERSION = "1.0";
 
-    private Document document;
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+
+    private Document document = null;
 
     protected XMLBuilder() throws BuilderException {
-        try {
-            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            document = builder.newDocument();
-            Element root = XMLKeys.JBOTSIM.createElement(document);
-            XMLKeys.VERSION_ATTR.setAttribute(root, DEFAULT_VERSION);
-            document.appendChild(root);
-        } catch (ParserConfigurationException e) {
-            throw new BuilderException(e);
-        }
+    }
 
+    /**
+     * Writes the root element of the document, i.e. the single child of the {@code jbotsim} element. Does nothing by
+     * default, for subclasses which build the {@link Document} themselves.
+     *
+     * @param writer the {@link XMLElementWriter} to write to.
+     * @throws XMLStreamException raised if an XML error occurs while writing.
+     */
+    protected void writeRootElement(XMLElementWriter writer) throws XMLStreamException {
     }
 
     /**
-     * Accessor to the  {@link Document} handled by this builder.
+     * Accessor to the  {@link Document} handled by this builder. The document is built on the first call; from then
+     * on, it is the one written by this builder.
      *
      * @return the {@link Document} under construction
      */
     public Document getDocument() {
+        if (document == null) {
+            try {
+                DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+                Document doc = builder.newDocument();
+                Element root = XMLKeys.JBOTSIM.createElement(doc);
+                XMLKeys.VERSION_ATTR.setAttribute(root, DEFAULT_VERSION);
+                doc.appendChild(root);
+                XMLElementWriter writer = createElementWriter(root);
+                writeRootElement(writer);
+                writer.flush();
+                document = doc;
+            } catch (ParserConfigurationException | XMLStreamException e) {
+                throw new IllegalStateException(new BuilderException(e));
+            }
+        }
         return document;
     }
 
     /**
-     * Outputs the current XML document into the specified file pointed by the given {@link File} descriptor.
+     * Indicates whether the {@link Document} has been built, see {@link #getDocument()}.
+     *
+     * @return <code>true</code> if the {@link Document} has been built, <code>false</code> otherwise.
+     */
+    protected boolean isDocumentBuilt() {
+        return document != null;
+    }
+
+    /**
+     * Creates an {@link XMLElementWriter} appending the written elements to the given DOM {@link Node}, which must be
+     * a {@link Document}, a {@link org.w3c.dom.DocumentFragment} or an {@link Element}.
+     *
+     * @param parent the {@link Node} to which the elements are appended.
+     * @return an {@link XMLElementWriter} building DOM elements.
+     * @throws XMLStreamException raised if the DOM writer cannot be created.
+     */
+    protected static XMLElementWriter createElementWriter(Node parent) throws XMLStreamException {
+        return new XMLElementWriter(XMLOutputFactory.newInstance().createXMLStreamWriter(new DOMResult(parent)), false);
+    }
+
+    /**
+     * Outputs the XML document into the file <code>filename</code>, opened using the given {@link FileAsStream}.
      *
-     * @return the {@link Document} converted into a {@link String}.
+     * @param fileAsStream the {@link FileAsStream} used to open the file.
+     * @param filename the destination file.
      * @throws BuilderException raised either when an XML error occurs while the document is created or if an IO error
      *         occurs.
      */
-    public String writeToString() throws BuilderException {
+    public void write(FileAsStream fileAsStream, String filename) throws BuilderException {
+        try (OutputStream out = fileAsStream.getOutputStreamForName(filename)) {
+            write(out);
+        } catch (IOException e) {
+            throw new BuilderException(e);
+        }
+    }
+
+    /**
+     * Outputs the XML document, encoded in UTF-8, into the given {@link OutputStream}, which is not closed.
+     *
+     * @param out the {@link OutputStream} to write to.
+     * @throws BuilderException raised either when an XML error occurs while the document is created or if an IO error
+     *         occurs.
+     */
+    public void write(OutputStream out) throws BuilderException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        write(writer);
         try {
-            return XMLIO.writeToString(document);
-        } catch (XMLIO.XMLIOException e) {
+            writer.flush();
+        } catch (IOException e) {
             throw new BuilderException(e);
         }
     }
 
+    /**
+     * Outputs the XML document using the given {@link Writer}, which is neither flushed nor closed.
+     *
+     * @param out the {@link Writer} to write to.
+     * @throws BuilderException raised either when an XML error occurs while the document is created or if an IO error
+     *         occurs.
+     */
+    public void write(Writer out) throws BuilderException {
+        try {
+            if (document != null) {
+                XMLIO.write(out, document);
+                return;
+            }
+            out.write(XML_DECLARATION);
+            out.write('\n');
+            XMLStreamWriter streamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+            XMLElementWriter writer = new XMLElementWriter(streamWriter, true);
+            writer.startElement(XMLKeys.JBOTSIM);
+            writer.setAttribute(XMLKeys.VERSION_ATTR, DEFAULT_VERSION);
+            writeRootElement(writer);
+            writer.endElement();
+            writer.flush();
+            out.write('\n');
+        } catch (XMLIO.XMLIOException | XMLStreamException | IOException e) {
+            throw new BuilderException(e);
+        }
+    }
+
+    /**
+     * Outputs the XML document into a {@link String}.
+     *
+     * @return the document converted into a {@link String}.
+     * @throws BuilderException raised either when an XML error occurs while the document is created or if an IO error
+     *         occurs.
+     */
+    public String writeToString() throws BuilderException {
+        StringWriter writer = new StringWriter();
+        write(writer);
+        return writer.toString();
+    }
+
     /**
      * Exception raised whenever an error occurs while a {@link Document} is built.
      */
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2008 - 2020, Arnaud Casteigts and the JBotSim contributors <contact@jbotsim.io>
+ *
+ *
+ * This file is part of JBotSim.
+ *
+ * JBotSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JBotSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JBotSim.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ */
+package io.jbotsim.io.format.xml;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Helper class used by {@link XMLBuilder XMLBuilders} to write the elements of a JBotSim XML document through an
+ * {@link XMLStreamWriter}.
+ *
+ * <p>The attributes of each element are buffered until its first child or its end, so that they are written sorted
+ * by name. When writing text, elements without children are written as empty elements and each element is written on
+ * its own line, indented by two spaces per level, as {@link XMLIO#write(java.io.Writer, org.w3c.dom.Document)} does:
+ * the output does not depend on whether the document was streamed or built as a {@link org.w3c.dom.Document}.</p>
+ */
+public class XMLElementWriter {
+    private static final String INDENTATION = "  ";
+
+    private final XMLStreamWriter writer;
+    private final boolean text;
+    private final Map<String, String> attributes = new TreeMap<>();
+    private String pendingElement = null;
+    private int depth = 0;
+    private boolean firstElement = true;
+
+    XMLElementWriter(XMLStreamWriter writer, boolean text) {
+        this.writer = writer;
+        this.text = text;
+    }
+
+    /**
+     * Starts an element labelled by the given key. Its attributes must be set before its first child.
+     *
+     * @param key the {@link XMLKeys key} labelling the element.
+     * @throws XMLStreamException raised if the underlying {@link XMLStreamWriter} fails.
+     */
+    public void startElement(XMLKeys key) throws XMLStreamException {
+        startElement(key.getKey());
+    }
+
+    private void startElement(String name) throws XMLStreamException {
+        writePendingElement(false);
+        pendingElement = name;
+    }
+
+    /**
+     * Sets an attribute of the current element.
+     *
+     * The type of <code>value</code> must be supported by a <code>valueOf</code> method of {@link String}.
+     *
+     * @param key the {@link XMLKeys key} labelling the attribute.
+     * @param value the value of the attribute.
+     * @param <T> the type of the value assigned to the attribute.
+     * @see XMLKeys#setAttribute(Element, Object)
+     */
+    public <T> void setAttribute(XMLKeys key, T value) {
+        setAttribute(key.getKey(), String.valueOf(value));
+    }
+
+    private void setAttribute(String name, String value) {
+        if (pendingElement == null)
+            throw new IllegalStateException("attribute '" + name + "' set after the start of the element");
+        attributes.put(name, value);
+    }
+
+    /**
+     * Sets an attribute of the current element if its value is not equal to a default one.
+     *
+     * @param key the {@link XMLKeys key} labelling the attribute.
+     * @param value the value of the attribute.
+     * @param default_value the default value against which <code>value</code> is checked for equality.
+     * @param <T> the type of the value assigned to the attribute.
+     * @see XMLKeys#setNotDefaultAttribute(Element, Object, Object)
+     */
+    public <T> void setNotDefaultAttribute(XMLKeys key, T value, T default_value) {
+        if (value != default_value && !value.equals(default_value)) {
+            setAttribute(key, value);
+        }
+    }
+
+    /**
+     * Ends the current element.
+     *
+     * @throws XMLStreamException raised if the underlying {@link XMLStreamWriter} fails.
+     */
+    public void endElement() throws XMLStreamException {
+        if (pendingElement != null) {
+            writePendingElement(true);
+            return;
+        }
+        depth--;
+        writeIndentation();
+        writer.writeEndElement();
+    }
+
+    /**
+     * Writes a copy of the given {@link Element} and of its children elements.
+     *
+     * @param element the {@link Element} to copy.
+     * @throws XMLStreamException raised if the underlying {@link XMLStreamWriter} fails.
+     */
+    public void writeElement(Element element) throws XMLStreamException {
+        startElement(element.getNodeName());
+        NamedNodeMap elementAttributes = element.getAttributes();
+        for (int i = 0; i < elementAttributes.getLength(); i++) {
+            Attr attribute = (Attr) elementAttributes.item(i);
+            setAttribute(attribute.getName(), attribute.getValue());
+        }
+        for (Node n = element.getFirstChild(); n != null; n = n.getNextSibling())
+            if (n instanceof Element)
+                writeElement((Element) n);
+        endElement();
+    }
+
+    /**
+     * Flushes the underlying {@link XMLStreamWriter}.
+     *
+     * @throws XMLStreamException raised if the underlying {@link XMLStreamWriter} fails.
+     */
+    public void flush() throws XMLStreamException {
+        writer.flush();
+    }
+
+    private void writePendingElement(boolean empty) throws XMLStreamException {
+        if (pendingElement == null)
+            return;
+        writeIndentation();
+        // The DOM writer of the JDK sets the attributes of an empty element on its parent.
+        if (empty && text)
+            writer.writeEmptyElement(pendingElement);
+        else
+            writer.writeStartElement(pendingElement);
+        for (Map.Entry<String, String> attribute : attributes.entrySet())
+            writer.writeAttribute(attribute.getKey(), attribute.getValue());
+        attributes.clear();
+        pendingElement = null;
+        if (!empty)
+            depth++;
+        else if (!text)
+            writer.writeEndElement();
+    }
+
+    private void writeIndentation() throws XMLStreamException {
+        if (!text)
+            return;
+        StringBuilder indentation = new StringBuilder();
+        if (!firstElement)
+            indentation.append('\n');
+        firstElement = false;
+        for (int i = 0; i < depth; i++)
+            indentation.append(INDENTATION);
+        if (indentation.length() > 0)
+            writer.writeCharacters(indentation.toString());
+    }
+}
@@ -105,6 +105,15 @@ public enum XMLKeys {
         this.key = value;
     }
 
+    /**
+     * Gets the {@link String} labelling this enum, i.e. the name of the element or attribute in XML documents.
+     *
+     * @return the label of this enum.
+     */
+    public String getKey() {
+        return key;
+    }
+
     /**
      * Checks if this enum is labelled by the given {@link String} <code>val</code>.
      *
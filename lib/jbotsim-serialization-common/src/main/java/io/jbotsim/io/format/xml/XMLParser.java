@@ -23,16 +23,23 @@ package io.jbotsim.io.format.xml;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.xml.sax.SAXException;
-import org.xml.sax.SAXParseException;
+import org.xml.sax.*;
+import org.xml.sax.helpers.DefaultHandler;
 
 import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Base class for manipulation of XML documents that store JBotSim objects.
@@ -41,6 +48,12 @@ import java.io.InputStream;
  * methods. It parses the root node of the document to determine the version of the XSD schema used to format the
  * document; then it delegates the interpretation of XML element to subclasses.</p>
  *
+ * <p>By default, the document is parsed in streaming mode when the subclass provides an {@link ElementHandler} (see
+ * {@link #getRootElementHandler()}): the elements are interpreted as soon as they are read, and validated on the fly,
+ * so that the memory used does not depend on the size of the document. Otherwise, or if streaming is disabled (see
+ * {@link #disableStreaming()}), the whole document is loaded as a {@link Document} before being validated and
+ * interpreted.</p>
+ *
  * @see #parseRootElement
  */
 public abstract class XMLParser {
@@ -55,10 +68,35 @@ public abstract class XMLParser {
 
     private boolean validateDocument;
 
+    private boolean streaming = true;
+
     protected XMLParser(boolean validateDocument) {
         this.validateDocument = validateDocument;
     }
 
+    /**
+     * Enables the streaming mode, in which the elements are interpreted as soon as they are read. This is the default.
+     */
+    public void enableStreaming() {
+        streaming = true;
+    }
+
+    /**
+     * Disables the streaming mode: the whole document is loaded as a {@link Document} before being interpreted.
+     */
+    public void disableStreaming() {
+        streaming = false;
+    }
+
+    /**
+     * Indicates whether the streaming mode is enabled.
+     *
+     * @return <code>true</code> if the streaming mode is enabled, <code>false</code> otherwise.
+     */
+    public boolean isStreamingEnabled() {
+        return streaming;
+    }
+
     /**
      * Gets the version of the interpreted document.
      *
@@ -75,6 +113,10 @@ public abstract class XMLParser {
      * @throws ParserException raised if an IO error occurs or if the XML document is malformed.
      */
     public void parse(InputStream input) throws ParserException {
+        if (streaming && getRootElementHandler() != null) {
+            parse(new InputSource(input));
+            return;
+        }
         try {
             parse(XMLIO.read(input));
         } catch (XMLIO.XMLIOException e) {
@@ -89,6 +131,10 @@ public abstract class XMLParser {
      * @throws ParserException raised if an IO error occurs or if the XML document is malformed.
      */
     public void parseFromString(String input) throws ParserException {
+        if (streaming && getRootElementHandler() != null) {
+            parse(new InputSource(new StringReader(input)));
+            return;
+        }
         try {
             parse(XMLIO.readFromString(input));
         } catch (XMLIO.XMLIOException e) {
@@ -124,20 +170,7 @@ public abstract class XMLParser {
                 Schema schema = loadSchemaForVersion(version);
                 schema.newValidator().validate(new DOMSource(rootNode));
             } catch (SAXParseException e) {
-                String msg;
-                if (e.getPublicId() == null) {
-                    msg = "XSD validation error: ";
-                } else {
-                    msg = e.getPublicId() + ":";
-                    if (e.getLineNumber() >= 1) {
-                        msg += e.getLineNumber() + ":";
-                        if (e.getColumnNumber() >= 1) {
-                            msg += e.getColumnNumber() + ":";
-                        }
-                    }
-                    msg += "error: ";
-                }
-                throw new ParserException(msg + e.getMessage());
+                throw new ParserException(getValidationErrorMessage(e));
             } catch (SAXException e) {
                 throw new ParserException("unable to validate XML topology:" + e.getMessage());
             } catch (IOException e) {
@@ -165,6 +198,61 @@ public abstract class XMLParser {
      */
     public abstract void parseRootElement (Element element) throws ParserException;
 
+    /**
+     * Gets the handler of the root element of the document in streaming mode; the root element is the one passed to
+     * {@link #parseRootElement(Element)} otherwise.
+     *
+     * @return the {@link ElementHandler} of the root element, or <code>null</code> (the default) if the subclass only
+     * interprets {@link Document documents}.
+     */
+    protected ElementHandler getRootElementHandler() {
+        return null;
+    }
+
+    /**
+     * Loads and parses the document from the given SAX {@link InputSource input source} in streaming mode.
+     *
+     * <p>The root element of the document is checked and validated as in {@link #parse(Document)}, but the validation
+     * runs along with the interpretation: when the document is invalid, some elements may hence have been interpreted
+     * before the validation error is raised. As in {@link #parse(Document)}, validation errors take precedence: once
+     * an element cannot be interpreted, the rest of the document is only validated, and the interpretation error is
+     * raised at the end of a valid document.</p>
+     *
+     * @param input the source from which the document is read.
+     * @throws ParserException raised if an IO error occurs or if the XML document is malformed.
+     * @see #getRootElementHandler()
+     */
+    protected void parse(InputSource input) throws ParserException {
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.newSAXParser().parse(input, new StreamingHandler(getRootElementHandler()));
+        } catch (SAXException e) {
+            if (e.getException() instanceof ParserException)
+                throw (ParserException) e.getException();
+            throw new ParserException(new XMLIO.XMLIOException(e));
+        } catch (IOException | ParserConfigurationException e) {
+            throw new ParserException(new XMLIO.XMLIOException(e));
+        }
+    }
+
+    private static String getValidationErrorMessage(SAXParseException e) {
+        String msg;
+        if (e.getPublicId() == null) {
+            msg = "XSD validation error: ";
+        } else {
+            msg = e.getPublicId() + ":";
+            if (e.getLineNumber() >= 1) {
+                msg += e.getLineNumber() + ":";
+                if (e.getColumnNumber() >= 1) {
+                    msg += e.getColumnNumber() + ":";
+                }
+            }
+            msg += "error: ";
+        }
+        return msg + e.getMessage();
+    }
+
 
     /**
      * Loads the XSD schema that corresponds to the {@code version} of the document.
@@ -215,6 +303,169 @@ public abstract class XMLParser {
         }
     }
 
+    /**
+     * A handler of the elements of a document parsed in streaming mode.
+     *
+     * <p>Each element is passed with its attributes, but without its children; the children are then passed, one
+     * after the other, to the handler returned for their parent.</p>
+     *
+     * @see #getRootElementHandler()
+     */
+    public interface ElementHandler {
+        /**
+         * Interprets an element, as soon as its start tag has been read.
+         *
+         * @param element the element, with its attributes only.
+         * @return the handler of the children of the element, or <code>null</code> if they must be ignored.
+         * @throws ParserException raised if the XML document is malformed.
+         */
+        ElementHandler startElement(Element element) throws ParserException;
+    }
+
+    /**
+     * The SAX handler of the streaming mode: it checks the {@code jbotsim} element, feeds the schema validator (if
+     * any) and passes each element to the {@link ElementHandler} of its parent.
+     */
+    private class StreamingHandler extends DefaultHandler {
+        private final ElementHandler rootHandler;
+        private final Document elementFactory;
+        private final List<ElementHandler> handlers = new ArrayList<>();
+        private final List<String[]> prefixMappings = new ArrayList<>();
+        private Locator locator;
+        private ValidatorHandler validator;
+        private boolean rootElementSeen = false;
+        private Exception interpretationError = null;
+
+        StreamingHandler(ElementHandler rootHandler) throws ParserConfigurationException {
+            this.rootHandler = rootHandler;
+            this.elementFactory = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            if (validator != null)
+                validator.startPrefixMapping(prefix, uri);
+            else if (handlers.isEmpty())
+                prefixMappings.add(new String[]{prefix, uri});
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) throws SAXException {
+            if (validator != null)
+                validator.endPrefixMapping(prefix);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            Element element = elementFactory.createElement(qName);
+            for (int i = 0; i < attributes.getLength(); i++)
+                element.setAttribute(attributes.getQName(i), attributes.getValue(i));
+
+            if (handlers.isEmpty())
+                startDocumentElement(element);
+
+            if (validator != null) {
+                try {
+                    validator.startElement(uri, localName, qName, attributes);
+                } catch (SAXParseException e) {
+                    throw validationError(e);
+                }
+            }
+
+            ElementHandler handler = null;
+            try {
+                if (handlers.isEmpty())
+                    handler = this::startRootElement;
+                else if (interpretationError == null) {
+                    ElementHandler parentHandler = handlers.get(handlers.size() - 1);
+                    handler = parentHandler == null ? null : parentHandler.startElement(element);
+                }
+            } catch (ParserException | RuntimeException e) {
+                if (validator == null)
+                    throw interpretationError(e);
+                interpretationError = e;
+            }
+            handlers.add(handler);
+        }
+
+        private void startDocumentElement(Element element) throws SAXException {
+            if (!XMLKeys.JBOTSIM.labelsElement(element))
+                throw new SAXException(new ParserException("invalid node '" + element.getNodeName() + "' where '" +
+                        XMLKeys.JBOTSIM + "' was expected"));
+
+            if (validateDocument) {
+                String version = XMLKeys.VERSION_ATTR.getValueFor(element, XMLBuilder.DEFAULT_VERSION);
+                try {
+                    validator = loadSchemaForVersion(version).newValidatorHandler();
+                } catch (ParserException e) {
+                    throw new SAXException(e);
+                }
+                if (locator != null)
+                    validator.setDocumentLocator(locator);
+                validator.startDocument();
+                for (String[] mapping : prefixMappings)
+                    validator.startPrefixMapping(mapping[0], mapping[1]);
+            }
+        }
+
+        private ElementHandler startRootElement(Element element) throws ParserException {
+            // As in parse(Document), only the first child of the jbotsim element is interpreted
+            if (rootElementSeen)
+                return null;
+            rootElementSeen = true;
+            return rootHandler.startElement(element);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            handlers.remove(handlers.size() - 1);
+            if (validator != null) {
+                try {
+                    validator.endElement(uri, localName, qName);
+                    if (handlers.isEmpty())
+                        validator.endDocument();
+                } catch (SAXParseException e) {
+                    throw validationError(e);
+                }
+            }
+            if (handlers.isEmpty() && interpretationError != null)
+                throw interpretationError(interpretationError);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (validator != null) {
+                try {
+                    validator.characters(ch, start, length);
+                } catch (SAXParseException e) {
+                    throw validationError(e);
+                }
+            }
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            if (validator != null)
+                validator.ignorableWhitespace(ch, start, length);
+        }
+
+        private SAXException interpretationError(Exception e) {
+            if (e instanceof RuntimeException)
+                throw (RuntimeException) e;
+            return new SAXException(e);
+        }
+
+        private SAXException validationError(SAXParseException e) {
+            return new SAXException(new ParserException(getValidationErrorMessage(e)));
+        }
+    }
+
     /**
      * Exception raised whenever an error occurs while interpreting the XML document.
      */
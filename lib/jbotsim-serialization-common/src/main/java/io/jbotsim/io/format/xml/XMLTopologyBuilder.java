@@ -22,21 +22,25 @@ package io.jbotsim.io.format.xml;
 
 import io.jbotsim.core.*;
 import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamException;
+
 /**
  * <p>Builder for {@link Topology topologies} objects.</p>
  *
- * <p>This class is used, mainly, through methods inherited from {@link XMLBuilder}. The class method
- * {@link #buildTopologyElement} can be invoked to build the element that stores an entire
- * {@link Topology}.</p>
+ * <p>This class is used, mainly, through methods inherited from {@link XMLBuilder}. The {@link Topology} is written
+ * when the document is output, straight to its destination. The class method {@link #writeTopologyElement} can be
+ * invoked to write the element that stores an entire {@link Topology}, and {@link #buildTopologyElement} to build it
+ * as a DOM {@link Element}.</p>
  */
 public class XMLTopologyBuilder extends XMLBuilder {
     private Topology tp;
 
     /**
-     * This constructor add to the root element of the {@link Document document} the {@code topology} element that
-     * stores the {@link Topology topology}.
+     * This constructor prepares a document whose root element contains the {@code topology} element that stores the
+     * {@link Topology topology}. The {@link Topology} is read when the document is output or built.
      *
      * @param tp the {@link Topology} for which the {@link Document} is built.
      * @throws BuilderException is raised if an error occurs during the construction of the document.
@@ -44,9 +48,23 @@ public class XMLTopologyBuilder extends XMLBuilder {
     public XMLTopologyBuilder(Topology tp) throws BuilderException {
         super();
         this.tp = tp;
-        Document doc = getDocument();
-        Element topo = buildTopologyElement(doc, tp);
-        doc.getDocumentElement().appendChild(topo);
+    }
+
+    @Override
+    protected void writeRootElement(XMLElementWriter writer) throws XMLStreamException {
+        writeTopologyElement(writer, tp);
+    }
+
+    /**
+     * Outputs the XML document into the specified file, opened with the {@link io.jbotsim.io.FileManager} of the
+     * {@link Topology}.
+     *
+     * @param filename the targeted output file
+     * @throws BuilderException raised either when an XML error occurs while the document is created or if an IO error
+     *         occurs.
+     */
+    public void write(String filename) throws BuilderException {
+        write(tp.getFileManager(), filename);
     }
 
     /**
@@ -60,86 +78,107 @@ public class XMLTopologyBuilder extends XMLBuilder {
      * @return the {@link Element element} represetning the {@link Topology} {@code tp}
      */
     public static Element buildTopologyElement(Document doc, Topology tp) {
-        Element topo = XMLKeys.TOPOLOGY.createElement(doc);
+        DocumentFragment fragment = doc.createDocumentFragment();
+        try {
+            XMLElementWriter writer = createElementWriter(fragment);
+            writeTopologyElement(writer, tp);
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException(e);
+        }
+        return (Element) fragment.getFirstChild();
+    }
 
-        XMLKeys.WIRELESS_ENABLED_ATTR.setAttribute(topo, tp.getWirelessStatus());
-        XMLKeys.TIME_UNIT_ATTR.setAttribute(topo, tp.getTimeUnit());
+    /**
+     * Method that writes the actual element (and subtrees) that stores the givent {@link Topology} {@code tp}.
+     *
+     * @param writer the {@link XMLElementWriter} to write to.
+     * @param tp the {@link Topology topology} to be translated in XML.
+     * @throws XMLStreamException raised if an XML error occurs while writing.
+     */
+    public static void writeTopologyElement(XMLElementWriter writer, Topology tp) throws XMLStreamException {
+        writer.startElement(XMLKeys.TOPOLOGY);
 
-        XMLKeys.WIDTH_ATTR.setNotDefaultAttribute(topo, tp.getWidth(),
+        writer.setAttribute(XMLKeys.WIRELESS_ENABLED_ATTR, tp.getWirelessStatus());
+        writer.setAttribute(XMLKeys.TIME_UNIT_ATTR, tp.getTimeUnit());
+
+        writer.setNotDefaultAttribute(XMLKeys.WIDTH_ATTR, tp.getWidth(),
                 Topology.DEFAULT_WIDTH);
-        XMLKeys.HEIGHT_ATTR.setNotDefaultAttribute(topo, tp.getHeight(),
+        writer.setNotDefaultAttribute(XMLKeys.HEIGHT_ATTR, tp.getHeight(),
                 Topology.DEFAULT_HEIGHT);
-        XMLKeys.SENSING_RANGE_ATTR.setNotDefaultAttribute(topo, tp.getSensingRange(),
+        writer.setNotDefaultAttribute(XMLKeys.SENSING_RANGE_ATTR, tp.getSensingRange(),
                 Topology.DEFAULT_SENSING_RANGE);
-        XMLKeys.COMMUNICATION_RANGE_ATTR.setNotDefaultAttribute(topo, tp.getCommunicationRange(),
+        writer.setNotDefaultAttribute(XMLKeys.COMMUNICATION_RANGE_ATTR, tp.getCommunicationRange(),
                 Topology.DEFAULT_COMMUNICATION_RANGE);
 
-        topo.appendChild(buildClasses(doc, tp));
-        topo.appendChild(buildGraph(doc, tp));
+        writeClasses(writer, tp);
+        writeGraph(writer, tp);
 
-        return topo;
+        writer.endElement();
     }
 
-    private static void addModel(Document doc, Element parent, XMLKeys key, String id, Object object,
-                                 Class default_class) {
-        addModel(doc, parent, key, id, object.getClass(), default_class);
+    private static void addModel(XMLElementWriter writer, XMLKeys key, String id, Object object,
+                                 Class default_class) throws XMLStreamException {
+        addModel(writer, key, id, object.getClass(), default_class);
     }
 
-    private static void addModel(Document doc, Element parent, XMLKeys key, String id, Class c, Class default_class) {
+    private static void addModel(XMLElementWriter writer, XMLKeys key, String id, Class c, Class default_class)
+            throws XMLStreamException {
         if (c != null) {
-            Element e = key.createElement(doc, parent);
-            XMLKeys.IDENTIFIER_ATTR.setAttribute(e, id);
-            XMLKeys.CLASS_ATTR.setAttribute(e, c.getName());
+            writer.startElement(key);
+            writer.setAttribute(XMLKeys.IDENTIFIER_ATTR, id);
+            writer.setAttribute(XMLKeys.CLASS_ATTR, c.getName());
+            writer.endElement();
         }
     }
 
-    private static Element buildClasses(Document doc, Topology tp) {
-        Element classes = XMLKeys.CLASSES.createElement(doc);
-        addNodeModels(doc, tp, classes);
-        addModel(doc, classes, XMLKeys.MESSAGE_ENGINE, "default", tp.getMessageEngine(), DefaultMessageEngine.class);
-        addModel(doc, classes, XMLKeys.LINK_RESOLVER, "default", tp.getLinkResolver(), LinkResolver.class);
-        addModel(doc, classes, XMLKeys.SCHEDULER, "default", tp.getScheduler(), Scheduler.class);
-        addModel(doc, classes, XMLKeys.CLOCKCLASS, "default", tp.getClockModel(), DefaultClock.class);
-
-        return classes;
+    private static void writeClasses(XMLElementWriter writer, Topology tp) throws XMLStreamException {
+        writer.startElement(XMLKeys.CLASSES);
+        addNodeModels(writer, tp);
+        addModel(writer, XMLKeys.MESSAGE_ENGINE, "default", tp.getMessageEngine(), DefaultMessageEngine.class);
+        addModel(writer, XMLKeys.LINK_RESOLVER, "default", tp.getLinkResolver(), LinkResolver.class);
+        addModel(writer, XMLKeys.SCHEDULER, "default", tp.getScheduler(), Scheduler.class);
+        addModel(writer, XMLKeys.CLOCKCLASS, "default", tp.getClockModel(), DefaultClock.class);
+        writer.endElement();
     }
 
-    private static void addNodeModels(Document doc, Topology tp, Element classes) {
+    private static void addNodeModels(XMLElementWriter writer, Topology tp) throws XMLStreamException {
         for (String mname : tp.getModelsNames()) {
             Class cls = tp.getNodeModel(mname);
-            addModel(doc, classes, XMLKeys.NODECLASS, mname, cls, tp.getDefaultNodeModel());
+            addModel(writer, XMLKeys.NODECLASS, mname, cls, tp.getDefaultNodeModel());
         }
     }
 
 
-    private static Element buildGraph(Document doc, Topology tp) {
-        Element graph = XMLKeys.GRAPH.createElement(doc);
-        for (Node n : tp.getNodes())
-            addNode(doc, tp, graph, n);
-        for (Link l : tp.getLinks(Link.Orientation.DIRECTED))
+    private static void writeGraph(XMLElementWriter writer, Topology tp) throws XMLStreamException {
+        writer.startElement(XMLKeys.GRAPH);
+        for (Node n : tp.getNodesSnapshot())
+            addNode(writer, tp, n);
+        for (Link l : tp.getLinksSnapshot(Link.Orientation.DIRECTED))
             if (! l.isWireless())
-                addLink(doc, graph, l);
-
-        return graph;
+                addLink(writer, l);
+        writer.endElement();
     }
 
-    private static void addNode(Document doc, Topology tp, Element graph, Node n) {
-        Element ne = XMLKeys.NODE.createElement(doc, graph);
+    private static void addNode(XMLElementWriter writer, Topology tp, Node n) throws XMLStreamException {
+        writer.startElement(XMLKeys.NODE);
 
-        XMLKeys.IDENTIFIER_ATTR.setAttribute(ne, n.getID());
-        XMLKeys.COLOR_ATTR.setNotDefaultAttribute(ne, colorToXml(n.getColor()), colorToXml(Node.DEFAULT_COLOR));
-        XMLKeys.ICON_ATTR.setNotDefaultAttribute(ne, n.getIcon(), null);
-        XMLKeys.SIZE_ATTR.setNotDefaultAttribute(ne, n.getIconSize(), Node.DEFAULT_ICON_SIZE);
-        XMLKeys.COMMUNICATION_RANGE_ATTR.setNotDefaultAttribute(ne, n.getCommunicationRange(),
+        writer.setAttribute(XMLKeys.IDENTIFIER_ATTR, n.getID());
+        writer.setNotDefaultAttribute(XMLKeys.COLOR_ATTR, colorToXml(n.getColor()), colorToXml(Node.DEFAULT_COLOR));
+        writer.setNotDefaultAttribute(XMLKeys.ICON_ATTR, n.getIcon(), null);
+        writer.setNotDefaultAttribute(XMLKeys.SIZE_ATTR, n.getIconSize(), Node.DEFAULT_ICON_SIZE);
+        writer.setNotDefaultAttribute(XMLKeys.COMMUNICATION_RANGE_ATTR, n.getCommunicationRange(),
                 tp.getCommunicationRange());
-        XMLKeys.SENSING_RANGE_ATTR.setNotDefaultAttribute(ne, n.getSensingRange(),
+        writer.setNotDefaultAttribute(XMLKeys.SENSING_RANGE_ATTR, n.getSensingRange(),
                 tp.getSensingRange());
-        XMLKeys.DIRECTION_ATTR.setNotDefaultAttribute(ne, n.getDirection(), Node.DEFAULT_DIRECTION);
-        XMLKeys.LOCATION_X_ATTR.setAttribute(ne, n.getX());
-        XMLKeys.LOCATION_Y_ATTR.setAttribute(ne, n.getY());
-        XMLKeys.LOCATION_Z_ATTR.setNotDefaultAttribute(ne, n.getZ(), 0.0);
+        writer.setNotDefaultAttribute(XMLKeys.DIRECTION_ATTR, n.getDirection(), Node.DEFAULT_DIRECTION);
+        writer.setAttribute(XMLKeys.LOCATION_X_ATTR, n.getX());
+        writer.setAttribute(XMLKeys.LOCATION_Y_ATTR, n.getY());
+        writer.setNotDefaultAttribute(XMLKeys.LOCATION_Z_ATTR, n.getZ(), 0.0);
         if (! n.getClass().equals (tp.getDefaultNodeModel()))
-            XMLKeys.CLASS_ATTR.setNotDefaultAttribute(ne, n.getClass().getName(), "default");
+            writer.setNotDefaultAttribute(XMLKeys.CLASS_ATTR, n.getClass().getName(), "default");
+
+        writer.endElement();
     }
 
     private static String colorToXml(Color color) {
@@ -149,13 +188,14 @@ public class XMLTopologyBuilder extends XMLBuilder {
             return Integer.toHexString(color.getRGB());
     }
 
-    private static void addLink(Document doc, Element graph, Link l) {
-        Element ne = XMLKeys.LINK.createElement(doc, graph);
-        XMLKeys.DIRECTED_ATTR.setAttribute(ne, l.isDirected());
-        XMLKeys.SOURCE_ATTR.setAttribute(ne, l.endpoint(0).getID());
-        XMLKeys.DESTINATION_ATTR.setAttribute(ne, l.endpoint(1).getID());
-        XMLKeys.WIDTH_ATTR.setNotDefaultAttribute(ne, l.getWidth(), Link.DEFAULT_WIDTH);
-        XMLKeys.COLOR_ATTR.setNotDefaultAttribute(ne, colorToXml(l.getColor()), colorToXml(Link.DEFAULT_COLOR));
+    private static void addLink(XMLElementWriter writer, Link l) throws XMLStreamException {
+        writer.startElement(XMLKeys.LINK);
+        writer.setAttribute(XMLKeys.DIRECTED_ATTR, l.isDirected());
+        writer.setAttribute(XMLKeys.SOURCE_ATTR, l.endpoint(0).getID());
+        writer.setAttribute(XMLKeys.DESTINATION_ATTR, l.endpoint(1).getID());
+        writer.setNotDefaultAttribute(XMLKeys.WIDTH_ATTR, l.getWidth(), Link.DEFAULT_WIDTH);
+        writer.setNotDefaultAttribute(XMLKeys.COLOR_ATTR, colorToXml(l.getColor()), colorToXml(Link.DEFAULT_COLOR));
+        writer.endElement();
     }
 
 }
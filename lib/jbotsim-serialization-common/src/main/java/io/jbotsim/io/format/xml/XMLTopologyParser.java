@@ -38,6 +38,9 @@ import static io.jbotsim.core.Link.Orientation.UNDIRECTED;
  *
  * The class does not create an new topology but populates an existing one passed to the constructor. The client code
  * is in charge of clearing the given topology.
+ *
+ * In streaming mode (see {@link #enableStreaming()}), the nodes and links are added to the topology as soon as they
+ * are read, through the {@link ElementHandler} returned by {@link #createTopologyElementHandler(Topology)}.
  */
 public class XMLTopologyParser extends XMLParser {
     private final Topology tp;
@@ -58,6 +61,11 @@ public class XMLTopologyParser extends XMLParser {
         parseTopologyElement(element, tp);
     }
 
+    @Override
+    protected ElementHandler getRootElementHandler() {
+        return createTopologyElementHandler(tp);
+    }
+
     /**
      * Interprets the root element of a topology and fulfilled the one passed as argument.
      *
@@ -66,6 +74,41 @@ public class XMLTopologyParser extends XMLParser {
      * @throws ParserException is raised if the given XML document is malformed.
      */
     public static void parseTopologyElement(Element topo, Topology tp) throws ParserException {
+        parseTopologyAttributes(topo, tp);
+
+        mapElementChildrenOf(topo, e -> {
+            if (XMLKeys.CLASSES.labelsElement(e))
+                mapElementChildrenOf(e, el -> parseClass(el,tp) );
+            else if (XMLKeys.GRAPH.labelsElement(e))
+                parseGraphElement(e, tp);
+        });
+    }
+
+    /**
+     * Creates the {@link ElementHandler} interpreting the root element of a topology in streaming mode, which fulfills
+     * the one passed as argument.
+     *
+     * @param tp the {@link Topology topology} that is populated with XML data.
+     * @return the handler of the {@link Element root element} that describes the topology.
+     * @see #parseTopologyElement(Element, Topology)
+     */
+    public static ElementHandler createTopologyElementHandler(Topology tp) {
+        return topo -> {
+            parseTopologyAttributes(topo, tp);
+            return e -> {
+                if (XMLKeys.CLASSES.labelsElement(e))
+                    return el -> {
+                        parseClass(el, tp);
+                        return null;
+                    };
+                else if (XMLKeys.GRAPH.labelsElement(e))
+                    return createGraphElementHandler(tp);
+                return null;
+            };
+        };
+    }
+
+    private static void parseTopologyAttributes(Element topo, Topology tp) throws ParserException {
         if (!XMLKeys.TOPOLOGY.equals(topo.getNodeName()))
             throw new ParserException("invalid node '" + topo.getNodeName() + "' where '" + XMLKeys.TOPOLOGY + "' was expected");
 
@@ -88,13 +131,6 @@ public class XMLTopologyParser extends XMLParser {
         tp.setDimensions(width, height);
         tp.setSensingRange(sr);
         tp.setCommunicationRange(cr);
-
-        mapElementChildrenOf(topo, e -> {
-            if (XMLKeys.CLASSES.labelsElement(e))
-                mapElementChildrenOf(e, el -> parseClass(el,tp) );
-            else if (XMLKeys.GRAPH.labelsElement(e))
-                parseGraphElement(e, tp);
-        });
     }
 
     private static void parseClass(Element C, Topology tp) throws ParserException {
@@ -135,14 +171,20 @@ public class XMLTopologyParser extends XMLParser {
     }
 
     private static void parseGraphElement(Element ge, Topology tp) throws ParserException {
+        ElementHandler handler = createGraphElementHandler(tp);
+        mapElementChildrenOf(ge, handler::startElement);
+    }
+
+    private static ElementHandler createGraphElementHandler(Topology tp) {
         HashMap<String, Node> nodeids = new HashMap<>();
-        mapElementChildrenOf(ge, e -> {
+        return e -> {
             if (XMLKeys.NODE.labelsElement(e))
                 parseNode(e, tp, nodeids);
             else if (XMLKeys.LINK.labelsElement(e))
                 parseLink(e, tp, nodeids);
             else throw new EnumConstantNotPresentException(XMLKeys.class, e.getTagName());
-        });
+            return null;
+        };
     }
 
     private static Color parseColor(Element e, Color default_color) {
@@ -45,6 +45,21 @@ public class XMLTopologySerializer implements TopologySerializer {
         return result;
     }
 
+    /**
+     * Streams the XML document to the file, without building it in memory.
+     *
+     * @param topology The {@link Topology} object which must be exported
+     * @param filename The path to the file
+     */
+    @Override
+    public void exportToFile(Topology topology, String filename) {
+        try {
+            new XMLTopologyBuilder(topology).write(filename);
+        } catch (XMLBuilder.BuilderException e) {
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public void importFromString(Topology topology, String data) {
         try {
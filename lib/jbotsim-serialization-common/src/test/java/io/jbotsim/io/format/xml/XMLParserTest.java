@@ -31,7 +31,10 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 
 import static org.junit.Assert.*;
@@ -63,6 +66,66 @@ public class XMLParserTest {
         assertEquals(T.getLinks().size(), 1);
     }
 
+    @Test
+    public void twonodesWithoutStreaming() throws XMLParser.ParserException {
+        Topology T = loadXMLFile("twonodes.xml", false);
+        assertEquals(T.getNodes().size(), 2);
+        assertEquals(T.getLinks().size(), 1);
+    }
+
+    @Test
+    public void streamingAndDocumentParsingAgree() throws Exception {
+        for (String xmlFileName : new String[]{"twonodes.xml", "named-node-models.xml", "empty-graph.xml"}) {
+            String streamed = new XMLTopologyBuilder(loadXMLFile(xmlFileName, true)).writeToString();
+            String parsed = new XMLTopologyBuilder(loadXMLFile(xmlFileName, false)).writeToString();
+            assertEquals(xmlFileName, parsed, streamed);
+        }
+    }
+
+    @Test
+    public void streamingParseFromString() throws Exception {
+        Topology T = loadXMLFile("twonodes.xml", false);
+        String xml = new XMLTopologyBuilder(T).writeToString();
+
+        Topology T2 = new Topology();
+        XMLTopologyParser tpp = new XMLTopologyParser(T2, true);
+        assertTrue(tpp.isStreamingEnabled());
+        tpp.parseFromString(xml);
+
+        assertEquals(xml, new XMLTopologyBuilder(T2).writeToString());
+    }
+
+    @Test
+    public void streamedAndDocumentOutputsAgree() throws Exception {
+        for (String xmlFileName : new String[]{"twonodes.xml", "named-node-models.xml", "empty-graph.xml"}) {
+            Topology T = loadXMLFile(xmlFileName);
+            String streamed = new XMLTopologyBuilder(T).writeToString();
+            String written = XMLIO.writeToString(new XMLTopologyBuilder(T).getDocument());
+            assertEquals(xmlFileName, written, streamed);
+        }
+    }
+
+    @Test
+    public void writeToOutputStream() throws Exception {
+        XMLTopologyBuilder builder = new XMLTopologyBuilder(loadXMLFile("twonodes.xml"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        builder.write(out);
+
+        assertEquals(builder.writeToString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void serializerExportToFile() throws Exception {
+        Topology T = loadXMLFile("twonodes.xml");
+        XMLTopologySerializer serializer = new XMLTopologySerializer(true);
+        File file = File.createTempFile("twonodes", ".xml");
+        file.deleteOnExit();
+
+        serializer.exportToFile(T, file.getPath());
+
+        assertEquals(serializer.exportToString(T), T.getFileManager().read(file.getPath()));
+    }
+
     @Test
     public void noDefaultConstructorTest() {
         try {
@@ -115,6 +178,16 @@ public class XMLParserTest {
         testXSDValidationError("unknown-model-class.xml", "cvc-complex-type.2.4.a");
     }
 
+    @Test
+    public void unknownModelClassWithoutStreaming() {
+        try {
+            loadXMLFile("unknown-model-class.xml", false);
+            thrown.expect(XMLParser.ParserException.class);
+        } catch (XMLParser.ParserException e) {
+            assertXSDValidationError(e, "cvc-complex-type.2.4.a");
+        }
+    }
+
     @Test
     public void badSrcNodeTest() throws XMLParser.ParserException {
         thrown.expect(XMLParser.ParserException.class);
@@ -219,8 +292,14 @@ public class XMLParserTest {
     }
 
     public static Topology loadXMLFile(String xmlFileName) throws XMLParser.ParserException {
+        return loadXMLFile(xmlFileName, true);
+    }
+
+    public static Topology loadXMLFile(String xmlFileName, boolean streaming) throws XMLParser.ParserException {
         Topology T = new Topology();
         XMLTopologyParser tpp = new XMLTopologyParser(T, true);
+        if (!streaming)
+            tpp.disableStreaming();
         String resource = TEST_RC_ROOT + xmlFileName;
         InputStream is = XMLParserTest.class.getResourceAsStream(resource);
         if (is == null) {
@@ -230,8 +230,7 @@ public class JViewer implements CommandListener, ChangeListener, PropertyListene
         if (filename == null) return;
 
         TopologySerializer serializer = getTopologySerializerForFilename(filename, jtp.topo);
-        String exportedTopology = serializer.exportToString(jtp.topo);
-        jtp.topo.getFileManager().write(filename, exportedTopology);
+        serializer.exportToFile(jtp.topo, filename);
     }
 
     private void executeLoadTopology() {
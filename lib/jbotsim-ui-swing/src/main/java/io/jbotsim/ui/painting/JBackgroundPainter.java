@@ -38,7 +38,7 @@ public class JBackgroundPainter implements BackgroundPainter {
         setRenderingHints(g2d, tp);
         setColor(g2d, tp);
 
-        for (Node n : tp.getNodes()) {
+        for (Node n : tp.getNodesSnapshot()) {
             drawSensingRange(g2d, n);
         }
     }